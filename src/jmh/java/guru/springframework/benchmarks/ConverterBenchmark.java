@@ -0,0 +1,57 @@
+package guru.springframework.benchmarks;
+
+import guru.springframework.commands.RecipeCommand;
+import guru.springframework.converters.RecipeCommandToRecipe;
+import guru.springframework.converters.RecipeToRecipeCommand;
+import guru.springframework.domain.Recipe;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Converting a recipe to its form command and back, for a small, a typical and a very long ingredient list.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ConverterBenchmark {
+
+    @Param({"3", "15", "100"})
+    int ingredientCount;
+
+    RecipeToRecipeCommand recipeToRecipeCommand;
+    RecipeCommandToRecipe recipeCommandToRecipe;
+    Recipe recipe;
+    RecipeCommand command;
+
+    @Setup
+    public void setUp() {
+        recipeToRecipeCommand = Recipes.recipeToRecipeCommand();
+        recipeCommandToRecipe = Recipes.recipeCommandToRecipe();
+        recipe = Recipes.recipe(1L, ingredientCount);
+        command = recipeToRecipeCommand.convert(recipe);
+    }
+
+    @Benchmark
+    public RecipeCommand recipeToCommand() {
+        return recipeToRecipeCommand.convert(recipe);
+    }
+
+    @Benchmark
+    public Recipe commandToRecipe() {
+        return recipeCommandToRecipe.convert(command);
+    }
+}
@@ -0,0 +1,74 @@
+package guru.springframework.benchmarks;
+
+import guru.springframework.commands.RecipeCommand;
+import guru.springframework.converters.RecipeToRecipeCommand;
+import guru.springframework.domain.Recipe;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Concurrent recipe conversions through the shared converter singletons, lock free ("lockFree") against the
+ * former Lombok @Synchronized converters ("locked"), which held the converter's lock for the whole conversion.
+ * Each nested class runs both with another number of threads; lockFree throughput should grow with the thread
+ * count while locked stays flat. Run with: mvn -Pbenchmark test-compile exec:exec -Djmh.args=ConverterScaling
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public abstract class ConverterScalingBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Converter {
+
+        final Object lock = new Object();
+        RecipeToRecipeCommand recipeToRecipeCommand;
+        Recipe recipe;
+
+        @Setup
+        public void setUp() {
+            recipeToRecipeCommand = Recipes.recipeToRecipeCommand();
+            recipe = Recipes.recipe(1L, 10);
+        }
+    }
+
+    @Benchmark
+    public RecipeCommand lockFree(Converter converter) {
+        return converter.recipeToRecipeCommand.convert(converter.recipe);
+    }
+
+    @Benchmark
+    public RecipeCommand locked(Converter converter) {
+        synchronized (converter.lock) {
+            return converter.recipeToRecipeCommand.convert(converter.recipe);
+        }
+    }
+
+    @Threads(1)
+    public static class Threads1 extends ConverterScalingBenchmark {
+    }
+
+    @Threads(2)
+    public static class Threads2 extends ConverterScalingBenchmark {
+    }
+
+    @Threads(4)
+    public static class Threads4 extends ConverterScalingBenchmark {
+    }
+
+    @Threads(8)
+    public static class Threads8 extends ConverterScalingBenchmark {
+    }
+}
@@ -0,0 +1,148 @@
+package guru.springframework.benchmarks;
+
+import guru.springframework.controllers.ImageController;
+import guru.springframework.domain.ImageContent;
+import guru.springframework.domain.RecipeImage;
+import guru.springframework.repositories.RecipeImageRepository;
+import guru.springframework.repositories.RecipeRepository;
+import guru.springframework.services.CoalescedLoads;
+import guru.springframework.services.FileSystemImageStore;
+import guru.springframework.services.ImageCache;
+import guru.springframework.services.ImageServiceImpl;
+import guru.springframework.services.ImageStore;
+import guru.springframework.services.RecipeService;
+import org.apache.tomcat.util.http.fileupload.IOUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Image upload and download with the old boxed Byte[] copy loops ("boxed") against the
+ * current streaming pipeline ("primitive"). Run with the gc profiler (the default for the
+ * benchmark profile) and compare gc.alloc.rate.norm, the bytes allocated per operation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ImageCopyBenchmark {
+
+    static final String HASH = "0000000000000000000000000000000000000000000000000000000000000000";
+
+    @Param({"4096", "65536"})
+    int imageSize;
+
+    MultipartFile upload;
+    Byte[] boxedImage;
+    ImageServiceImpl imageService;
+    ImageController imageController;
+
+    @Setup
+    public void setUp() throws IOException {
+        byte[] image = new byte[imageSize];
+        new Random(42).nextBytes(image);
+        // a JPEG start of image marker, so the upload is recognised as an image
+        image[0] = (byte) 0xFF;
+        image[1] = (byte) 0xD8;
+        image[2] = (byte) 0xFF;
+
+        upload = new CopyingMultipartFile(image);
+        boxedImage = new Byte[image.length];
+        for (int i = 0; i < image.length; i++) {
+            boxedImage[i] = image[i];
+        }
+
+        RecipeImage recipeImage = new RecipeImage();
+        recipeImage.setId(1L);
+        recipeImage.setContentHash(HASH);
+        recipeImage.setContentType("image/jpeg");
+        recipeImage.setContentLength((long) imageSize);
+
+        RecipeImageRepository recipeImageRepository = mock(RecipeImageRepository.class, withSettings().stubOnly());
+        when(recipeImageRepository.findById(anyLong())).thenReturn(Optional.of(recipeImage));
+        when(recipeImageRepository.findContentByRecipeId(anyLong())).thenReturn(Optional.of(
+                new ImageContent(1L, HASH, "image/jpeg", (long) imageSize, null)));
+
+        ImageStore imageStore = new FileSystemImageStore(Files.createTempDirectory("image-benchmark").toString());
+        imageStore.save(HASH, image.length, new ByteArrayInputStream(image));
+
+        // the image cache is disabled, this measures the copy from the store
+        imageService = new ImageServiceImpl(mock(RecipeRepository.class, withSettings().stubOnly()), recipeImageRepository,
+                imageStore, new ImageCache(0, false), event -> { }, Long.MAX_VALUE, new int[0], new CoalescedLoads());
+        imageController = new ImageController(mock(RecipeService.class, withSettings().stubOnly()), imageService);
+    }
+
+    @Benchmark
+    public Byte[] boxedUpload() throws IOException {
+        Byte[] byteObjects = new Byte[upload.getBytes().length];
+        for (int i = 0; i < upload.getBytes().length; i++) {
+            byteObjects[i] = upload.getBytes()[i];
+        }
+        return byteObjects;
+    }
+
+    @Benchmark
+    public void primitiveUpload() {
+        imageService.saveImageFile(1L, upload);
+    }
+
+    @Benchmark
+    public byte[] boxedDownload() throws IOException {
+        byte[] imageAsByteArray = new byte[boxedImage.length];
+        for (int i = 0; i < boxedImage.length; i++) {
+            imageAsByteArray[i] = boxedImage[i];
+        }
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        IOUtils.copy(new ByteArrayInputStream(imageAsByteArray), response.getOutputStream());
+        return response.getContentAsByteArray();
+    }
+
+    @Benchmark
+    public byte[] primitiveDownload() throws IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        imageController.renderImageFromDb("1", null, new MockHttpServletRequest(), response);
+        return response.getContentAsByteArray();
+    }
+
+    /**
+     * Like the servlet container's multipart file, hands out a fresh copy on every getBytes() call.
+     */
+    static class CopyingMultipartFile extends MockMultipartFile {
+
+        CopyingMultipartFile(byte[] content) {
+            super("imagefile", "image.jpg", "image/jpeg", content);
+        }
+
+        @Override
+        public byte[] getBytes() throws IOException {
+            return super.getBytes().clone();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package guru.springframework.benchmarks;
+
+import guru.springframework.Spring5RecipeAppApplication;
+import guru.springframework.commands.IngredientCommand;
+import guru.springframework.domain.Ingredient;
+import guru.springframework.domain.Recipe;
+import guru.springframework.domain.UnitOfMeasure;
+import guru.springframework.repositories.RecipeRepository;
+import guru.springframework.repositories.UnitOfMeasureRepository;
+import guru.springframework.services.IngredientService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Editing every ingredient of a recipe one request at a time ("perItem") against a single
+ * bulk edit ("batched"), on the application's in-memory database. Each operation changes
+ * the amount of all ingredients so every row is updated.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class IngredientBatchBenchmark {
+
+    @Param({"10", "100", "1000"})
+    int ingredientCount;
+
+    ConfigurableApplicationContext context;
+    IngredientService ingredientService;
+    Long recipeId;
+    List<IngredientCommand> ingredients;
+    int amount;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(Spring5RecipeAppApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--logging.level.guru.springframework=INFO");
+        ingredientService = context.getBean(IngredientService.class);
+
+        UnitOfMeasure uom = context.getBean(UnitOfMeasureRepository.class).findByDescription("Cup").get();
+        Recipe recipe = new Recipe();
+        recipe.setDescription("Benchmark recipe");
+        for (int i = 0; i < ingredientCount; i++) {
+            recipe.addIngredient(new Ingredient("ingredient " + i, BigDecimal.ONE, uom));
+        }
+        recipeId = context.getBean(RecipeRepository.class).save(recipe).getId();
+
+        ingredients = ingredientService.findByRecipeId(recipeId);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public IngredientCommand perItem() {
+        BigDecimal nextAmount = BigDecimal.valueOf(++amount);
+
+        IngredientCommand saved = null;
+        for (IngredientCommand ingredient : ingredients) {
+            ingredient.setAmount(nextAmount);
+            saved = ingredientService.saveIngredientCommand(ingredient);
+        }
+        return saved;
+    }
+
+    @Benchmark
+    public List<IngredientCommand> batched() {
+        BigDecimal nextAmount = BigDecimal.valueOf(++amount);
+
+        for (IngredientCommand ingredient : ingredients) {
+            ingredient.setAmount(nextAmount);
+        }
+        return ingredientService.saveIngredientCommands(recipeId, ingredients, Collections.emptySet());
+    }
+}
@@ -0,0 +1,96 @@
+package guru.springframework.benchmarks;
+
+import guru.springframework.Spring5RecipeAppApplication;
+import guru.springframework.commands.IngredientCommand;
+import guru.springframework.converters.IngredientToIngredientCommand;
+import guru.springframework.domain.Ingredient;
+import guru.springframework.domain.Recipe;
+import guru.springframework.domain.UnitOfMeasure;
+import guru.springframework.repositories.RecipeRepository;
+import guru.springframework.repositories.UnitOfMeasureRepository;
+import guru.springframework.services.IngredientService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Looking up one ingredient of a recipe by loading the recipe and scanning its ingredients ("recipeScan"), as
+ * IngredientServiceImpl used to, against the service's lookup by ingredient and recipe id ("byId"), on the
+ * application's in-memory database. The looked up ingredient is the last one of the recipe.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class IngredientLookupBenchmark {
+
+    @Param({"10", "100"})
+    int ingredientCount;
+
+    ConfigurableApplicationContext context;
+    IngredientService ingredientService;
+    RecipeRepository recipeRepository;
+    IngredientToIngredientCommand ingredientToIngredientCommand;
+    TransactionTemplate transactionTemplate;
+    Long recipeId;
+    Long ingredientId;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(Spring5RecipeAppApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--logging.level.guru.springframework=INFO");
+        ingredientService = context.getBean(IngredientService.class);
+        recipeRepository = context.getBean(RecipeRepository.class);
+        ingredientToIngredientCommand = context.getBean(IngredientToIngredientCommand.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+
+        UnitOfMeasure uom = context.getBean(UnitOfMeasureRepository.class).findByDescription("Cup").get();
+        Recipe recipe = new Recipe();
+        recipe.setDescription("Benchmark recipe");
+        for (int i = 0; i < ingredientCount; i++) {
+            recipe.addIngredient(new Ingredient("ingredient " + i, BigDecimal.ONE, uom));
+        }
+        recipe = recipeRepository.save(recipe);
+        recipeId = recipe.getId();
+        ingredientId = recipe.getIngredients().stream().mapToLong(Ingredient::getId).max().getAsLong();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public IngredientCommand recipeScan() {
+        return transactionTemplate.execute(status -> recipeRepository.findById(recipeId).get()
+                .getIngredients().stream()
+                .filter(ingredient -> ingredient.getId().equals(ingredientId))
+                .map(ingredientToIngredientCommand::convert)
+                .findFirst().get());
+    }
+
+    @Benchmark
+    public IngredientCommand byId() {
+        return ingredientService.findByRecipeIdAndIngredientId(recipeId, ingredientId);
+    }
+}
@@ -0,0 +1,99 @@
+package guru.springframework.benchmarks;
+
+import guru.springframework.domain.Category;
+import guru.springframework.domain.Ingredient;
+import guru.springframework.domain.Notes;
+import guru.springframework.domain.Recipe;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hashing recipe entities, alone and while collecting them into a set. The "deep" benchmarks compute the hash
+ * code Lombok's @Data used to generate, over every field and the whole graph of ingredients, categories and
+ * notes; the others use the entities' id-based equality, whose constant hash code puts every recipe of a set in
+ * one bucket, so building the set grows quadratically with the recipe count.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class RecipeHashBenchmark {
+
+    @Param({"100", "10000"})
+    int recipeCount;
+
+    @Param({"3", "15", "100"})
+    int ingredientCount;
+
+    Recipe recipe;
+    List<Recipe> recipes;
+
+    @Setup
+    public void setUp() {
+        recipe = Recipes.recipe(1L, ingredientCount);
+        recipes = new ArrayList<>(recipeCount);
+        for (int i = 1; i <= recipeCount; i++) {
+            recipes.add(Recipes.recipe(i, ingredientCount));
+        }
+    }
+
+    @Benchmark
+    public int hashCodeOfRecipe() {
+        return recipe.hashCode();
+    }
+
+    @Benchmark
+    public int deepHashCodeOfRecipe() {
+        return deepHashCode(recipe);
+    }
+
+    @Benchmark
+    public Set<Recipe> buildRecipeSet() {
+        return new HashSet<>(recipes);
+    }
+
+    @Benchmark
+    public Set<Integer> buildRecipeSetDeep() {
+        // the hashing a set of @Data recipes did, the set of hash codes stands in for the set itself
+        Set<Integer> hashCodes = new HashSet<>(recipeCount * 2);
+        for (Recipe each : recipes) {
+            hashCodes.add(deepHashCode(each));
+        }
+        return hashCodes;
+    }
+
+    private static int deepHashCode(Recipe recipe) {
+        int ingredients = 0;
+        for (Ingredient ingredient : recipe.getIngredients()) {
+            ingredients += Objects.hash(ingredient.getId(), ingredient.getDescription(), ingredient.getAmount(),
+                    ingredient.getUom().getId(), ingredient.getUom().getDescription());
+        }
+        int categories = 0;
+        for (Category category : recipe.getCategories()) {
+            categories += Objects.hash(category.getId(), category.getDescription());
+        }
+        Notes notes = recipe.getNotes();
+
+        return Objects.hash(recipe.getId(), recipe.getDescription(), recipe.getPrepTime(), recipe.getCookTime(),
+                recipe.getServings(), recipe.getSource(), recipe.getUrl(), recipe.getDirections(), ingredients,
+                recipe.getDifficulty(), Objects.hash(notes.getId(), notes.getRecipeNotes()), categories);
+    }
+}
@@ -0,0 +1,81 @@
+package guru.springframework.benchmarks;
+
+import guru.springframework.converters.CategoryCommandToCategory;
+import guru.springframework.converters.CategoryToCategoryCommand;
+import guru.springframework.converters.IngredientCommandToIngredient;
+import guru.springframework.converters.IngredientToIngredientCommand;
+import guru.springframework.converters.NotesCommandToNotes;
+import guru.springframework.converters.NotesToNotesCommand;
+import guru.springframework.converters.RecipeCommandToRecipe;
+import guru.springframework.converters.RecipeToRecipeCommand;
+import guru.springframework.converters.UnitOfMeasureCommandToUnitOfMeasure;
+import guru.springframework.converters.UnitOfMeasureToUnitOfMeasureCommand;
+import guru.springframework.domain.Category;
+import guru.springframework.domain.Difficulty;
+import guru.springframework.domain.Ingredient;
+import guru.springframework.domain.Notes;
+import guru.springframework.domain.Recipe;
+import guru.springframework.domain.UnitOfMeasure;
+
+import java.math.BigDecimal;
+
+/**
+ * Benchmark fixtures: recipes shaped like the bootstrapped ones and the converters wired as in the application.
+ */
+final class Recipes {
+
+    private Recipes() {
+    }
+
+    /**
+     * A recipe with notes, two categories and the given number of ingredients, all with ids as if loaded.
+     */
+    static Recipe recipe(long id, int ingredientCount) {
+        Recipe recipe = new Recipe();
+        recipe.setId(id);
+        recipe.setDescription("Recipe " + id);
+        recipe.setPrepTime(10);
+        recipe.setCookTime(20);
+        recipe.setServings(4);
+        recipe.setSource("Simply Recipes");
+        recipe.setUrl("http://www.simplyrecipes.com/recipes/perfect_guacamole/");
+        recipe.setDifficulty(Difficulty.EASY);
+        recipe.setDirections("1 Cut avocado, remove flesh: Cut the avocados in half. Remove seed. "
+                + "Score the inside of the avocado with a blunt knife and scoop out the flesh with a spoon.");
+
+        Notes notes = new Notes();
+        notes.setId(id);
+        notes.setRecipeNotes("For a very quick guacamole just take a 1/4 cup of salsa and mix it in with your mashed avocados.");
+        recipe.setNotes(notes);
+
+        recipe.getCategories().add(category(1L, "American"));
+        recipe.getCategories().add(category(2L, "Mexican"));
+
+        UnitOfMeasure uom = new UnitOfMeasure();
+        uom.setId(1L);
+        uom.setDescription("Teaspoon");
+        for (int i = 0; i < ingredientCount; i++) {
+            Ingredient ingredient = new Ingredient("ingredient " + i, BigDecimal.valueOf(i + 1), uom);
+            ingredient.setId(id * 1000 + i);
+            recipe.addIngredient(ingredient);
+        }
+        return recipe;
+    }
+
+    static RecipeToRecipeCommand recipeToRecipeCommand() {
+        return new RecipeToRecipeCommand(new CategoryToCategoryCommand(),
+                new IngredientToIngredientCommand(new UnitOfMeasureToUnitOfMeasureCommand()), new NotesToNotesCommand());
+    }
+
+    static RecipeCommandToRecipe recipeCommandToRecipe() {
+        return new RecipeCommandToRecipe(new CategoryCommandToCategory(),
+                new IngredientCommandToIngredient(new UnitOfMeasureCommandToUnitOfMeasure()), new NotesCommandToNotes());
+    }
+
+    private static Category category(Long id, String description) {
+        Category category = new Category();
+        category.setId(id);
+        category.setDescription(description);
+        return category;
+    }
+}
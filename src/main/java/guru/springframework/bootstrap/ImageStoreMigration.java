@@ -0,0 +1,78 @@
+package guru.springframework.bootstrap;
+
+import guru.springframework.repositories.StoredImageRepository;
+import guru.springframework.services.DatabaseImageStore;
+import guru.springframework.services.FileSystemImageStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Moves image content from the database store into the filesystem store. Runs when the
+ * application is started with {@code --recipe.image.store=filesystem --migrate-images}.
+ * Recipe images keep pointing at the same hashes, so no other rows change.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "recipe.image.store", havingValue = "filesystem")
+public class ImageStoreMigration implements ApplicationRunner {
+
+    static final String MIGRATE_OPTION = "migrate-images";
+
+    private final StoredImageRepository storedImageRepository;
+    private final DatabaseImageStore databaseImageStore;
+    private final FileSystemImageStore fileSystemImageStore;
+
+    public ImageStoreMigration(StoredImageRepository storedImageRepository, DatabaseImageStore databaseImageStore,
+                               FileSystemImageStore fileSystemImageStore) {
+        this.storedImageRepository = storedImageRepository;
+        this.databaseImageStore = databaseImageStore;
+        this.fileSystemImageStore = fileSystemImageStore;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        if (!args.containsOption(MIGRATE_OPTION)) {
+            return;
+        }
+
+        List<String> hashes = storedImageRepository.findAllHashes();
+        log.info("Moving {} images from the database to the filesystem store.", hashes.size());
+
+        for (String hash : hashes) {
+            migrate(hash);
+        }
+
+        log.info("Image migration done.");
+    }
+
+    void migrate(String hash) throws IOException {
+        if (!fileSystemImageStore.contains(hash)) {
+            // spool through a temp file so that no image is held in memory
+            Path temp = Files.createTempFile("image-migration", ".tmp");
+            try {
+                try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                    databaseImageStore.transferTo(hash, channel);
+                }
+                try (InputStream inputStream = Files.newInputStream(temp)) {
+                    fileSystemImageStore.save(hash, Files.size(temp), inputStream);
+                }
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        }
+
+        databaseImageStore.delete(hash);
+        log.debug("Moved image {}.", hash);
+    }
+}
@@ -22,6 +22,7 @@ import java.util.Set;
 @NoArgsConstructor
 public class RecipeCommand {
     private Long id;
+    private Long version;
 
     @NotBlank
     @Size(min = 3, max = 255)
@@ -48,5 +49,4 @@ public class RecipeCommand {
     private Difficulty difficulty;
     private NotesCommand notes;
     private Set<CategoryCommand> categories = new HashSet<>();
-    private Byte[] image;
 }
@@ -0,0 +1,22 @@
+package guru.springframework.commands;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * All ingredients of a recipe, edited in one form.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+public class RecipeIngredientsCommand {
+    private Long recipeId;
+    private List<IngredientCommand> ingredients = new ArrayList<>();
+    private Set<Long> deletedIds = new HashSet<>();
+}
@@ -0,0 +1,32 @@
+package guru.springframework.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Slf4j
+@EnableAsync
+@Configuration
+public class AsyncConfig {
+
+    public static final String IMAGE_RENDITION_EXECUTOR = "imageRenditionExecutor";
+
+    /**
+     * Fixed size pool with a bounded queue. When the queue is full new work is dropped,
+     * the original image is served until the renditions are regenerated on the next upload.
+     */
+    @Bean(name = IMAGE_RENDITION_EXECUTOR)
+    public ThreadPoolTaskExecutor imageRenditionExecutor(@Value("${recipe.image.rendition.threads}") int threads,
+                                                         @Value("${recipe.image.rendition.queue-capacity}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("image-rendition-");
+        executor.setRejectedExecutionHandler((task, pool) -> log.warn("Image rendition queue is full, dropping task."));
+        return executor;
+    }
+}
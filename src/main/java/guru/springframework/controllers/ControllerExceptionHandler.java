@@ -1,5 +1,7 @@
 package guru.springframework.controllers;
 
+import guru.springframework.exceptions.ImageTooLargeException;
+import guru.springframework.exceptions.UnsupportedImageTypeException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -22,4 +24,30 @@ public class ControllerExceptionHandler {
 
         return modelAndView;
     }
+
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    @ExceptionHandler(ImageTooLargeException.class)
+    public ModelAndView handleImageTooLargeException(Exception exception) {
+        log.error("Handling image too large exception.");
+        log.error(exception.getMessage());
+
+        ModelAndView modelAndView = new ModelAndView();
+        modelAndView.setViewName("400error");
+        modelAndView.addObject("exception", exception);
+
+        return modelAndView;
+    }
+
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    @ExceptionHandler(UnsupportedImageTypeException.class)
+    public ModelAndView handleUnsupportedImageTypeException(Exception exception) {
+        log.error("Handling unsupported image type exception.");
+        log.error(exception.getMessage());
+
+        ModelAndView modelAndView = new ModelAndView();
+        modelAndView.setViewName("400error");
+        modelAndView.addObject("exception", exception);
+
+        return modelAndView;
+    }
 }
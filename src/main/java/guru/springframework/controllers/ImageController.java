@@ -1,27 +1,37 @@
 package guru.springframework.controllers;
 
-import guru.springframework.commands.RecipeCommand;
+import guru.springframework.domain.ImageContent;
 import guru.springframework.services.ImageService;
+import guru.springframework.services.ImageTypes;
 import guru.springframework.services.RecipeService;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.tomcat.util.http.fileupload.IOUtils;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 @Slf4j
 @Controller
 public class ImageController {
 
+    static final String VERSION_PARAMETER = "v";
+
     private final RecipeService recipeService;
     private final ImageService imageService;
 
@@ -32,7 +42,7 @@ public class ImageController {
 
     @GetMapping("recipe/{id}/image")
     public String showUploadForm(@PathVariable String id, Model model) {
-        model.addAttribute("recipe", recipeService.findCommandById(Long.valueOf(id)));
+        model.addAttribute("recipe", recipeService.findDetailsById(Long.valueOf(id)));
 
         return "recipe/imageuploadform";
     }
@@ -49,19 +59,94 @@ public class ImageController {
     @GetMapping("recipe/{id}/recipeimage")
     public void renderImageFromDb(
             @PathVariable String id,
+            @RequestParam(value = "size", required = false) Integer size,
+            HttpServletRequest request,
             HttpServletResponse response) throws IOException {
-        RecipeCommand recipeCommand = recipeService.findCommandById(Long.valueOf(id));
-        if (recipeCommand.getImage() == null) {
+        ImageContent content = imageService.loadImage(Long.valueOf(id), size);
+        if (content == null) {
+            return;
+        }
+
+        // the content hash identifies the bytes served, so it makes a strong validator
+        String etag = "\"" + content.getContentHash() + "\"";
+        long lastModified = content.getLastModified() != null ? content.getLastModified().toEpochMilli() : -1;
+
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl(request, content).getHeaderValue());
+
+        // sets ETag and Last-Modified, and answers 304 if the client's copy is current
+        if (new ServletWebRequest(request, response).checkNotModified(etag, lastModified)) {
             return;
         }
-        // convert Byte[] to byte[]
-        byte[] imageAsByteArray = new byte[recipeCommand.getImage().length];
-        for (int i = 0; i < recipeCommand.getImage().length; i++) {
-            imageAsByteArray[i] = recipeCommand.getImage()[i];
+
+        long length = content.getContentLength();
+        long position = 0;
+        long count = length;
+
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        // browsers must not guess a type other than the one sent
+        response.setHeader("X-Content-Type-Options", "nosniff");
+
+        HttpRange range = singleRange(request, etag);
+        if (range != null) {
+            position = range.getRangeStart(length);
+            if (position >= length) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                return;
+            }
+            count = range.getRangeEnd(length) - position + 1;
+
+            response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+            response.setHeader(HttpHeaders.CONTENT_RANGE,
+                    "bytes " + position + "-" + (position + count - 1) + "/" + length);
+        }
+
+        response.setContentType(contentType(content));
+        response.setContentLengthLong(count);
+        // streamed in chunks through the servlet output, a plain stream wrapper rather than a zero-copy path
+        imageService.writeImage(content, position, count, Channels.newChannel(response.getOutputStream()));
+    }
+
+    /**
+     * Images uploaded before their type was checked are sent as plain bytes unless they have an image type.
+     */
+    private String contentType(ImageContent content) {
+        return ImageTypes.CONTENT_TYPES.contains(content.getContentType())
+                ? content.getContentType() : MediaType.APPLICATION_OCTET_STREAM_VALUE;
+    }
+
+    /**
+     * Links that carry the current image version (?v=...) never change, anything else has to be revalidated.
+     * The original standing in for a missing rendition is not cached either, the rendition is on its way.
+     */
+    private CacheControl cacheControl(HttpServletRequest request, ImageContent content) {
+        if (!content.isProvisional() && content.getVersion().equals(request.getParameter(VERSION_PARAMETER))) {
+            return CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic();
         }
+        return CacheControl.noCache();
+    }
 
-        response.setContentType("image/jpeg");
-        InputStream is = new ByteArrayInputStream(imageAsByteArray);
-        IOUtils.copy(is, response.getOutputStream());
+    /**
+     * Returns the requested range, or null when the whole image should be sent: no or malformed
+     * Range header, multiple ranges, or an If-Range validator that no longer matches.
+     */
+    private HttpRange singleRange(HttpServletRequest request, String etag) {
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader == null) {
+            return null;
+        }
+
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange != null && !ifRange.equals(etag)) {
+            return null;
+        }
+
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(rangeHeader);
+            return ranges.size() == 1 ? ranges.get(0) : null;
+        } catch (IllegalArgumentException e) {
+            log.debug("Ignoring invalid range header: {}", rangeHeader);
+            return null;
+        }
     }
 }
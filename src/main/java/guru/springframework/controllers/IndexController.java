@@ -1,15 +1,23 @@
 package guru.springframework.controllers;
 
+import guru.springframework.domain.RecipeSummary;
 import guru.springframework.services.RecipeService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.util.List;
 
 @Slf4j
 @Controller
 public class IndexController {
 
+    static final int DEFAULT_PAGE_SIZE = 20;
+    static final int MAX_PAGE_SIZE = 100;
+
     private final RecipeService recipeService;
 
     public IndexController(RecipeService recipeService) {
@@ -17,10 +25,29 @@ public class IndexController {
     }
 
     @RequestMapping({"", "/", "/index"})
-    public String getIndexPage(Model model) {
-        log.debug("Getting index page.");
+    public String getIndexPage(@RequestParam(value = "after", required = false) Long after,
+                               @RequestParam(value = "size", required = false) Integer size,
+                               ServletWebRequest request, Model model) {
+        log.debug("Getting index page (after: {}, size: {}).", after, size);
+
+        // the query string is part of the cached URL, so the catalog version alone identifies each page
+        if (PageETags.checkNotModified(request, PageETags.etag("index", recipeService.getCatalogVersion()))) {
+            return null;
+        }
+
+        int pageSize = size == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+
+        // fetch one extra row to find out if there is a next page without a count query
+        List<RecipeSummary> recipes = recipeService.getRecipeSummaries(after, pageSize + 1);
+
+        if (recipes.size() > pageSize) {
+            recipes = recipes.subList(0, pageSize);
+            model.addAttribute("next", recipes.get(pageSize - 1).getId());
+        }
 
-        model.addAttribute("recipes", recipeService.getRecipes());
+        model.addAttribute("recipes", recipes);
+        model.addAttribute("after", after);
+        model.addAttribute("size", pageSize);
 
         return "index";
     }
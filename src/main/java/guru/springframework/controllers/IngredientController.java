@@ -1,15 +1,24 @@
 package guru.springframework.controllers;
 
 import guru.springframework.commands.IngredientCommand;
-import guru.springframework.commands.RecipeCommand;
+import guru.springframework.commands.RecipeIngredientsCommand;
 import guru.springframework.commands.UnitOfMeasureCommand;
 import guru.springframework.services.IngredientService;
 import guru.springframework.services.RecipeService;
 import guru.springframework.services.UnitOfMeasureService;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.InvalidPropertyException;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
+import org.springframework.util.StringUtils;
+import org.springframework.web.bind.WebDataBinder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.ModelAndView;
+
+import java.util.List;
+import java.util.stream.Collectors;
 
 /**
  * Created by jt on 6/28/17.
@@ -18,6 +27,13 @@ import org.springframework.web.bind.annotation.*;
 @Controller
 public class IngredientController {
 
+    /**
+     * The most rows the bulk ingredient form binds, larger forms are rejected. Spring grows bound lists up to 256
+     * elements by default, fewer than the largest recipes the form is meant for; at up to six parameters a row,
+     * this many rows stay within Tomcat's default limit of 10000 request parameters.
+     */
+    static final int MAX_FORM_INGREDIENTS = 1500;
+
     private final IngredientService ingredientService;
     private final RecipeService recipeService;
     private final UnitOfMeasureService unitOfMeasureService;
@@ -28,16 +44,58 @@ public class IngredientController {
         this.unitOfMeasureService = unitOfMeasureService;
     }
 
+    @InitBinder("ingredients")
+    public void initIngredientsBinder(WebDataBinder binder) {
+        binder.setAutoGrowCollectionLimit(MAX_FORM_INGREDIENTS);
+    }
+
     @GetMapping("/recipe/{recipeId}/ingredients")
-    public String listIngredients(@PathVariable String recipeId, Model model){
+    public String listIngredients(@PathVariable String recipeId, ServletWebRequest request, Model model){
         log.debug("Getting ingredient list for recipe id: " + recipeId);
 
-        // use command object to avoid lazy load errors in Thymeleaf.
-        model.addAttribute("recipe", recipeService.findCommandById(Long.valueOf(recipeId)));
+        // ingredient changes increment the recipe version
+        if (PageETags.checkNotModified(request,
+                PageETags.etag("ingredients", recipeId, recipeService.findVersionById(Long.valueOf(recipeId))))) {
+            return null;
+        }
+
+        // the view renders from a read model, nothing is lazily loaded while rendering
+        model.addAttribute("recipeId", Long.valueOf(recipeId));
+        model.addAttribute("ingredients", ingredientService.findDetailsByRecipeId(Long.valueOf(recipeId)));
 
         return "recipe/ingredient/list";
     }
 
+    @GetMapping("recipe/{recipeId}/ingredients/edit")
+    public String editIngredients(@PathVariable String recipeId, Model model){
+        RecipeIngredientsCommand command = new RecipeIngredientsCommand();
+        command.setRecipeId(Long.valueOf(recipeId));
+        command.getIngredients().addAll(ingredientService.findByRecipeId(command.getRecipeId()));
+
+        // a blank row for adding an ingredient
+        IngredientCommand newIngredient = new IngredientCommand();
+        newIngredient.setUom(new UnitOfMeasureCommand());
+        command.getIngredients().add(newIngredient);
+
+        model.addAttribute("ingredients", command);
+        model.addAttribute("uomList", unitOfMeasureService.listAllUoms());
+
+        return "recipe/ingredient/bulkform";
+    }
+
+    @PostMapping("recipe/{recipeId}/ingredients")
+    public String saveIngredients(@PathVariable String recipeId,
+                                  @ModelAttribute("ingredients") RecipeIngredientsCommand command){
+        // new rows left blank in the form are ignored
+        List<IngredientCommand> ingredients = command.getIngredients().stream()
+                .filter(ingredient -> ingredient.getId() != null || StringUtils.hasText(ingredient.getDescription()))
+                .collect(Collectors.toList());
+
+        ingredientService.saveIngredientCommands(Long.valueOf(recipeId), ingredients, command.getDeletedIds());
+
+        return "redirect:/recipe/" + recipeId + "/ingredients";
+    }
+
     @GetMapping("recipe/{recipeId}/ingredient/{id}/show")
     public String showRecipeIngredient(@PathVariable String recipeId,
                                        @PathVariable String id, Model model){
@@ -48,9 +106,8 @@ public class IngredientController {
     @GetMapping("recipe/{recipeId}/ingredient/new")
     public String newIngredient(@PathVariable String recipeId, Model model){
 
-        //make sure we have a good id value
-        RecipeCommand recipeCommand = recipeService.findCommandById(Long.valueOf(recipeId));
-        //todo raise exception if null
+        //make sure we have a good id value, throws NotFoundException otherwise
+        recipeService.findDetailsById(Long.valueOf(recipeId));
 
         //need to return back parent id for hidden form property
         IngredientCommand ingredientCommand = new IngredientCommand();
@@ -92,4 +149,17 @@ public class IngredientController {
         ingredientService.deleteIngredientById(Long.valueOf(recipeId), Long.valueOf(id));
         return "redirect:/recipe/" + recipeId + "/ingredients";
     }
+
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    @ExceptionHandler(InvalidPropertyException.class)
+    public ModelAndView handleInvalidProperty(Exception exception) {
+        // a bulk form with more rows than are bound, or a malformed row index
+        log.debug("Handling invalid property exception: {}", exception.getMessage());
+
+        ModelAndView modelAndView = new ModelAndView();
+        modelAndView.setViewName("400error");
+        modelAndView.addObject("exception", exception);
+
+        return modelAndView;
+    }
 }
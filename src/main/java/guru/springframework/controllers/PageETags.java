@@ -0,0 +1,59 @@
+package guru.springframework.controllers;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Conditional GET for rendered pages. A page's ETag is built from the versions of what it shows, so a repeat visit
+ * is answered with 304 before the page's data is loaded or its template rendered.
+ */
+final class PageETags {
+
+    // pages also change with the templates, so nothing validated before a restart matches after it
+    private static final String STARTUP = Long.toString(System.currentTimeMillis(), 36);
+
+    private PageETags() {
+    }
+
+    static String etag(Object... versions) {
+        StringBuilder etag = new StringBuilder("W/\"").append(STARTUP);
+        for (Object version : versions) {
+            etag.append('-').append(version);
+        }
+        return etag.append('"').toString();
+    }
+
+    static boolean isRevalidation(ServletWebRequest request) {
+        return request.getHeader(HttpHeaders.IF_NONE_MATCH) != null;
+    }
+
+    /**
+     * Sets the page's validators and returns true if the client's copy is current, in which case the response is
+     * a 304 and the handler returns without a view.
+     */
+    static boolean checkNotModified(ServletWebRequest request, String etag) {
+        noCache(request.getResponse());
+        return request.checkNotModified(etag);
+    }
+
+    /**
+     * Sets the page's validators without checking the request, for pages that learn their version while loading.
+     */
+    static void setETag(ServletWebRequest request, String etag) {
+        HttpServletResponse response = request.getResponse();
+        noCache(response);
+        if (response != null) {
+            response.setHeader(HttpHeaders.ETAG, etag);
+        }
+    }
+
+    // browsers revalidate on every visit, which is cheap when nothing changed
+    private static void noCache(HttpServletResponse response) {
+        if (response != null) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().getHeaderValue());
+        }
+    }
+}
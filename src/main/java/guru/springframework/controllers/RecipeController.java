@@ -1,10 +1,14 @@
 package guru.springframework.controllers;
 
 import guru.springframework.commands.RecipeCommand;
+import guru.springframework.domain.ImageContent;
+import guru.springframework.domain.RecipeDetails;
 import guru.springframework.exceptions.NotFoundException;
+import guru.springframework.services.ImageService;
 import guru.springframework.services.RecipeService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
@@ -12,8 +16,10 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.servlet.ModelAndView;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 
 @Slf4j
@@ -21,18 +27,34 @@ import javax.validation.Valid;
 public class RecipeController {
 
     private final RecipeService recipeService;
+    private final ImageService imageService;
 
     private static final String RECIPE_RECIPEFORM_URL = "recipe/recipeform";
 
-    public RecipeController(RecipeService recipeService) {
+    public RecipeController(RecipeService recipeService, ImageService imageService) {
         this.recipeService = recipeService;
+        this.imageService = imageService;
     }
 
     @GetMapping("/recipe/{id}/show")
-    public String showById(@PathVariable String id, Model model){
+    public String showById(@PathVariable String id, ServletWebRequest request, Model model){
         log.debug("Getting showById (id: {}) recipe page.", id);
 
-        model.addAttribute("recipe", recipeService.findById(Long.valueOf(id)));
+        // the recipe version also covers its ingredients and image; a revalidation is answered from the version
+        // alone, a first visit gets it with the recipe
+        if (PageETags.isRevalidation(request) && PageETags.checkNotModified(request,
+                PageETags.etag("recipe", id, recipeService.findVersionById(Long.valueOf(id))))) {
+            return null;
+        }
+
+        RecipeDetails recipe = recipeService.findDetailsById(Long.valueOf(id));
+        PageETags.setETag(request, PageETags.etag("recipe", id, recipe.getVersion()));
+        model.addAttribute("recipe", recipe);
+
+        // versioned image link, lets browsers cache the image until it changes
+        ImageContent image = imageService.loadImage(Long.valueOf(id));
+        model.addAttribute("imageVersion", image != null ? image.getVersion() : null);
+
         return "recipe/show";
     }
 
@@ -52,7 +74,8 @@ public class RecipeController {
     @PostMapping("recipe")
     public String saveOrUpdate(
             @Valid @ModelAttribute("recipe") RecipeCommand command,
-            BindingResult bindingResult) {
+            BindingResult bindingResult,
+            HttpServletResponse response) {
 
         if (bindingResult.hasErrors()) {
 
@@ -63,7 +86,19 @@ public class RecipeController {
             return RECIPE_RECIPEFORM_URL;
         }
 
-        RecipeCommand savedCommand = recipeService.saveRecipeCommand(command);
+        RecipeCommand savedCommand;
+        try {
+            savedCommand = recipeService.saveRecipeCommand(command);
+        } catch (ObjectOptimisticLockingFailureException e) {
+            log.debug("Recipe (id: {}) was changed since the form was loaded.", command.getId());
+
+            // the form keeps what was entered, saving it again overwrites the other change
+            command.setVersion(recipeService.findVersionById(command.getId()));
+            bindingResult.reject("recipe.changed");
+            response.setStatus(HttpStatus.CONFLICT.value());
+
+            return RECIPE_RECIPEFORM_URL;
+        }
 
         return "redirect:/recipe/" + savedCommand.getId() + "/show";
     }
@@ -79,8 +114,8 @@ public class RecipeController {
     @ResponseStatus(HttpStatus.NOT_FOUND)
     @ExceptionHandler(NotFoundException.class)
     public ModelAndView handleNotFound(Exception exception) {
-        log.error("Handling not found exception");
-        log.error(exception.getMessage());
+        // a missing recipe is a client error, scrapers probing ids should not fill the error log
+        log.debug("Handling not found exception: {}", exception.getMessage());
 
         ModelAndView modelAndView = new ModelAndView();
         modelAndView.setViewName("404error");
@@ -0,0 +1,26 @@
+package guru.springframework.converters;
+
+import guru.springframework.domain.Ingredient;
+import guru.springframework.domain.IngredientDetails;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+@Component
+public class IngredientToIngredientDetails implements Converter<Ingredient, IngredientDetails> {
+
+    @Nullable
+    @Override
+    public IngredientDetails convert(Ingredient source) {
+        if (source == null) {
+            return null;
+        }
+
+        return new IngredientDetails(
+                source.getId(),
+                source.getRecipe() != null ? source.getRecipe().getId() : null,
+                source.getDescription(),
+                source.getAmount(),
+                source.getUom() != null ? source.getUom().getDescription() : null);
+    }
+}
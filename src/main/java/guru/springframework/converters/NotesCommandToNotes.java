@@ -2,7 +2,6 @@ package guru.springframework.converters;
 
 import guru.springframework.commands.NotesCommand;
 import guru.springframework.domain.Notes;
-import lombok.Synchronized;
 import org.springframework.core.convert.converter.Converter;
 import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Component;
@@ -13,7 +12,6 @@ import org.springframework.stereotype.Component;
 @Component
 public class NotesCommandToNotes implements Converter<NotesCommand, Notes> {
 
-    @Synchronized
     @Nullable
     @Override
     public Notes convert(NotesCommand source) {
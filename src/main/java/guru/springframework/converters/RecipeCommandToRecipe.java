@@ -2,7 +2,6 @@ package guru.springframework.converters;
 
 import guru.springframework.commands.RecipeCommand;
 import guru.springframework.domain.Recipe;
-import lombok.Synchronized;
 import org.springframework.core.convert.converter.Converter;
 import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Component;
@@ -24,7 +23,6 @@ public class RecipeCommandToRecipe implements Converter<RecipeCommand, Recipe> {
         this.notesConverter = notesConverter;
     }
 
-    @Synchronized
     @Nullable
     @Override
     public Recipe convert(RecipeCommand source) {
@@ -34,6 +32,7 @@ public class RecipeCommandToRecipe implements Converter<RecipeCommand, Recipe> {
 
         final Recipe recipe = new Recipe();
         recipe.setId(source.getId());
+        recipe.setVersion(source.getVersion());
         recipe.setCookTime(source.getCookTime());
         recipe.setPrepTime(source.getPrepTime());
         recipe.setDescription(source.getDescription());
@@ -51,7 +50,8 @@ public class RecipeCommandToRecipe implements Converter<RecipeCommand, Recipe> {
 
         if (source.getIngredients() != null && source.getIngredients().size() > 0){
             source.getIngredients()
-                    .forEach(ingredient -> recipe.getIngredients().add(ingredientConverter.convert(ingredient)));
+                    // the ingredients reference this recipe, which carries the version, not a stub with only the id
+                    .forEach(ingredient -> recipe.addIngredient(ingredientConverter.convert(ingredient)));
         }
 
         return recipe;
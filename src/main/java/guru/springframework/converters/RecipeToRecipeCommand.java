@@ -3,7 +3,6 @@ package guru.springframework.converters;
 import guru.springframework.commands.RecipeCommand;
 import guru.springframework.domain.Category;
 import guru.springframework.domain.Recipe;
-import lombok.Synchronized;
 import org.springframework.core.convert.converter.Converter;
 import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Component;
@@ -25,7 +24,6 @@ public class RecipeToRecipeCommand implements Converter<Recipe, RecipeCommand>{
         this.notesConverter = notesConverter;
     }
 
-    @Synchronized
     @Nullable
     @Override
     public RecipeCommand convert(Recipe source) {
@@ -35,6 +33,7 @@ public class RecipeToRecipeCommand implements Converter<Recipe, RecipeCommand>{
 
         final RecipeCommand command = new RecipeCommand();
         command.setId(source.getId());
+        command.setVersion(source.getVersion());
         command.setCookTime(source.getCookTime());
         command.setPrepTime(source.getPrepTime());
         command.setDescription(source.getDescription());
@@ -43,7 +42,6 @@ public class RecipeToRecipeCommand implements Converter<Recipe, RecipeCommand>{
         command.setServings(source.getServings());
         command.setSource(source.getSource());
         command.setUrl(source.getUrl());
-        command.setImage(source.getImage());
         command.setNotes(notesConverter.convert(source.getNotes()));
 
         if (source.getCategories() != null && source.getCategories().size() > 0){
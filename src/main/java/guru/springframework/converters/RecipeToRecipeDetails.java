@@ -0,0 +1,51 @@
+package guru.springframework.converters;
+
+import guru.springframework.domain.Category;
+import guru.springframework.domain.Ingredient;
+import guru.springframework.domain.Recipe;
+import guru.springframework.domain.RecipeDetails;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.stream.Collectors;
+
+@Component
+public class RecipeToRecipeDetails implements Converter<Recipe, RecipeDetails> {
+
+    private final IngredientToIngredientDetails ingredientConverter;
+
+    public RecipeToRecipeDetails(IngredientToIngredientDetails ingredientConverter) {
+        this.ingredientConverter = ingredientConverter;
+    }
+
+    @Nullable
+    @Override
+    public RecipeDetails convert(Recipe source) {
+        if (source == null) {
+            return null;
+        }
+
+        return new RecipeDetails(
+                source.getId(),
+                source.getVersion(),
+                source.getDescription(),
+                source.getPrepTime(),
+                source.getCookTime(),
+                source.getServings(),
+                source.getSource(),
+                source.getUrl(),
+                source.getDirections(),
+                source.getDifficulty(),
+                source.getNotes() != null ? source.getNotes().getRecipeNotes() : null,
+                source.getCategories().stream()
+                        .map(Category::getDescription)
+                        .sorted()
+                        .collect(Collectors.toList()),
+                source.getIngredients().stream()
+                        .sorted(Comparator.comparing(Ingredient::getId, Comparator.nullsLast(Comparator.naturalOrder())))
+                        .map(ingredientConverter::convert)
+                        .collect(Collectors.toList()));
+    }
+}
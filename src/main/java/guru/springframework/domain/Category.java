@@ -1,25 +1,47 @@
 package guru.springframework.domain;
 
 import lombok.Data;
-import lombok.EqualsAndHashCode;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Immutable;
 
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.ManyToMany;
+import javax.persistence.SequenceGenerator;
 import java.util.Set;
 
 @Data
-@EqualsAndHashCode(exclude = {"recipes"})
 @Entity
+// reference data, never changed by the application once inserted, which read-only caching relies on
+@Immutable
+@Cache(usage = CacheConcurrencyStrategy.READ_ONLY, region = "category")
 public class Category {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "category_seq")
+    @SequenceGenerator(name = "category_seq", sequenceName = "category_seq", allocationSize = 50)
     private Long id;
     private String description;
 
     @ManyToMany(mappedBy = "categories")
     private Set<Recipe> recipes;
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Category)) {
+            return false;
+        }
+        return id != null && id.equals(((Category) o).getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return Category.class.hashCode();
+    }
 }
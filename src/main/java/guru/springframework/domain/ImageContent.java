@@ -0,0 +1,32 @@
+package guru.springframework.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.Instant;
+
+/**
+ * What is needed to serve a recipe image, either the original or one of its renditions.
+ */
+@Getter
+@AllArgsConstructor
+public class ImageContent {
+
+    private final Long recipeId;
+    // hash of the uploaded original, used to version image links
+    private final String version;
+    // hash of the bytes to serve, differs from the version for renditions
+    private final String contentHash;
+    private final String contentType;
+    private final Long contentLength;
+    private final Instant lastModified;
+    // the original stands in for a rendition that has not been generated yet
+    private final boolean provisional;
+
+    /**
+     * The original image, which is its own version.
+     */
+    public ImageContent(Long recipeId, String contentHash, String contentType, Long contentLength, Instant lastModified) {
+        this(recipeId, contentHash, contentHash, contentType, contentLength, lastModified, false);
+    }
+}
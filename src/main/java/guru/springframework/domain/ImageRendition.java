@@ -0,0 +1,28 @@
+package guru.springframework.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Embeddable;
+import java.time.Instant;
+
+/**
+ * A resized copy of a recipe image, stored in the image store like the original.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Embeddable
+public class ImageRendition {
+
+    private String contentHash;
+    private String contentType;
+    private Long contentLength;
+    // when the rendition was saved, replacing the original that stood in for it
+    private Instant lastModified;
+
+    public ImageRendition(String contentHash, String contentType, Long contentLength) {
+        this(contentHash, contentType, contentLength, null);
+    }
+}
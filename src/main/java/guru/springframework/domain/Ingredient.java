@@ -1,7 +1,8 @@
 package guru.springframework.domain;
 
 import lombok.Data;
-import lombok.EqualsAndHashCode;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.Entity;
 import javax.persistence.FetchType;
@@ -10,20 +11,22 @@ import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.ManyToOne;
 import javax.persistence.OneToOne;
+import javax.persistence.SequenceGenerator;
 import java.math.BigDecimal;
 
 @Data
-@EqualsAndHashCode(exclude = {"recipe"})
 @Entity
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "ingredient")
 public class Ingredient {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ingredient_seq")
+    @SequenceGenerator(name = "ingredient_seq", sequenceName = "ingredient_seq", allocationSize = 50)
     private Long id;
     private String description;
     private BigDecimal amount;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private Recipe recipe;
 
     @OneToOne(fetch = FetchType.EAGER) // it's eager by default, just doing this for demonstration purposes
@@ -44,4 +47,20 @@ public class Ingredient {
         this.uom = uom;
         this.recipe = recipe;
     }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Ingredient)) {
+            return false;
+        }
+        return id != null && id.equals(((Ingredient) o).getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return Ingredient.class.hashCode();
+    }
 }
@@ -0,0 +1,20 @@
+package guru.springframework.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+
+/**
+ * Read-only view of an ingredient, complete for rendering without a persistence context.
+ */
+@Getter
+@AllArgsConstructor
+public class IngredientDetails {
+
+    private final Long id;
+    private final Long recipeId;
+    private final String description;
+    private final BigDecimal amount;
+    private final String uomDescription;
+}
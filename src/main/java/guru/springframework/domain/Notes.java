@@ -1,7 +1,8 @@
 package guru.springframework.domain;
 
 import lombok.Data;
-import lombok.EqualsAndHashCode;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
@@ -9,14 +10,16 @@ import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.Lob;
 import javax.persistence.OneToOne;
+import javax.persistence.SequenceGenerator;
 
 @Data
-@EqualsAndHashCode(exclude = {"recipe"})
 @Entity
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "notes")
 public class Notes {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "notes_seq")
+    @SequenceGenerator(name = "notes_seq", sequenceName = "notes_seq", allocationSize = 50)
     private Long id;
 
     @OneToOne
@@ -24,4 +27,20 @@ public class Notes {
 
     @Lob // allows users to put in more than 255 chars into db
     private String recipeNotes;
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Notes)) {
+            return false;
+        }
+        return id != null && id.equals(((Notes) o).getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return Notes.class.hashCode();
+    }
 }
@@ -1,11 +1,14 @@
 package guru.springframework.domain;
 
 import lombok.Data;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.CascadeType;
 import javax.persistence.Entity;
 import javax.persistence.EnumType;
 import javax.persistence.Enumerated;
+import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
@@ -13,18 +16,48 @@ import javax.persistence.JoinColumn;
 import javax.persistence.JoinTable;
 import javax.persistence.Lob;
 import javax.persistence.ManyToMany;
+import javax.persistence.NamedAttributeNode;
+import javax.persistence.NamedEntityGraph;
+import javax.persistence.NamedEntityGraphs;
+import javax.persistence.NamedSubgraph;
 import javax.persistence.OneToMany;
 import javax.persistence.OneToOne;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Version;
 import java.util.HashSet;
 import java.util.Set;
 
 @Data
 @Entity
+@NamedEntityGraphs({
+        // everything the show page and the conversion to RecipeCommand read; fetching both collections in one
+        // join returns a row per category and ingredient, which for a recipe's handful of each is cheaper than
+        // a second round trip
+        @NamedEntityGraph(name = Recipe.DETAILS_GRAPH,
+                attributeNodes = {
+                        @NamedAttributeNode("categories"),
+                        @NamedAttributeNode(value = "ingredients", subgraph = "ingredients"),
+                        @NamedAttributeNode("notes")},
+                subgraphs = @NamedSubgraph(name = "ingredients", attributeNodes = @NamedAttributeNode("uom"))),
+        @NamedEntityGraph(name = Recipe.INGREDIENTS_GRAPH,
+                attributeNodes = @NamedAttributeNode(value = "ingredients", subgraph = "ingredients"),
+                subgraphs = @NamedSubgraph(name = "ingredients", attributeNodes = @NamedAttributeNode("uom")))
+})
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "recipe")
 public class Recipe {
 
+    public static final String DETAILS_GRAPH = "Recipe.details";
+    public static final String INGREDIENTS_GRAPH = "Recipe.ingredients";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "recipe_seq")
+    @SequenceGenerator(name = "recipe_seq", sequenceName = "recipe_seq", allocationSize = 50)
     private Long id;
+
+    // incremented on every change to the recipe, its ingredients or its image
+    @Version
+    private Long version;
+
     private String description;
     private Integer prepTime;
     private Integer cookTime;
@@ -36,18 +69,17 @@ public class Recipe {
     private String directions;
 
     @OneToMany(cascade = CascadeType.ALL, mappedBy = "recipe")
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "recipeIngredients")
     private Set<Ingredient> ingredients = new HashSet<>();
 
-    @Lob
-    private Byte[] image;
-
     @Enumerated(value = EnumType.STRING) // Strings are more likely to survive refactoring your enum (vs. ordinal)
     private Difficulty difficulty;
 
-    @OneToOne(cascade = CascadeType.ALL)
+    @OneToOne(cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private Notes notes;
 
     @ManyToMany
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "recipeCategories")
     @JoinTable(name = "recipe_category",
         joinColumns = @JoinColumn(name = "recipe_id"),
             inverseJoinColumns = @JoinColumn(name = "category_id"))
@@ -65,4 +97,22 @@ public class Recipe {
         this.ingredients.add(ingredient);
         return this;
     }
+
+    // entities are equal by id, a new entity only to itself; the hash code stays the same when the id is
+    // assigned, so an entity can be put in a set before it is persisted
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Recipe)) {
+            return false;
+        }
+        return id != null && id.equals(((Recipe) o).getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return Recipe.class.hashCode();
+    }
 }
@@ -0,0 +1,28 @@
+package guru.springframework.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Read-only view of a recipe for the show page, complete for rendering without a persistence context.
+ */
+@Getter
+@AllArgsConstructor
+public class RecipeDetails {
+
+    private final Long id;
+    private final Long version;
+    private final String description;
+    private final Integer prepTime;
+    private final Integer cookTime;
+    private final Integer servings;
+    private final String source;
+    private final String url;
+    private final String directions;
+    private final Difficulty difficulty;
+    private final String notes;
+    private final List<String> categories;
+    private final List<IngredientDetails> ingredients;
+}
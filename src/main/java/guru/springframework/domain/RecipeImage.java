@@ -0,0 +1,71 @@
+package guru.springframework.domain;
+
+import lombok.Data;
+import lombok.ToString;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import javax.persistence.CollectionTable;
+import javax.persistence.ElementCollection;
+import javax.persistence.Entity;
+import javax.persistence.FetchType;
+import javax.persistence.ForeignKey;
+import javax.persistence.Id;
+import javax.persistence.JoinColumn;
+import javax.persistence.MapKeyColumn;
+import javax.persistence.MapsId;
+import javax.persistence.OneToOne;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Image of a recipe, kept in its own table so that loading a recipe never reads the image.
+ * Shares its primary key with the owning recipe. The content itself lives in the image store
+ * under its SHA-256 hash, so identical uploads are stored once. Resized renditions are
+ * generated in the background after an upload.
+ */
+@Data
+@ToString(exclude = {"recipe", "renditions"})
+@Entity
+public class RecipeImage {
+
+    @Id
+    private Long id;
+
+    @MapsId
+    @OneToOne(fetch = FetchType.LAZY)
+    @OnDelete(action = OnDeleteAction.CASCADE) // image row goes away together with the recipe
+    private Recipe recipe;
+
+    private String contentHash;
+    private String contentType;
+    private Long contentLength;
+    private Instant lastModified;
+
+    // keyed by the bounding box size in pixels; Hibernate does not support @OnDelete on element collections,
+    // so the cascade is part of the foreign key definition, as in the V5 migration
+    @ElementCollection
+    @CollectionTable(name = "recipe_image_rendition",
+            joinColumns = @JoinColumn(name = "recipe_image_id"),
+            foreignKey = @ForeignKey(name = "fk_recipe_image_rendition_image", foreignKeyDefinition =
+                    "foreign key (recipe_image_id) references recipe_image (recipe_id) on delete cascade"))
+    @MapKeyColumn(name = "rendition_size")
+    private Map<Integer, ImageRendition> renditions = new HashMap<>();
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof RecipeImage)) {
+            return false;
+        }
+        return id != null && id.equals(((RecipeImage) o).getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return RecipeImage.class.hashCode();
+    }
+}
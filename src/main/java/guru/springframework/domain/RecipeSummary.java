@@ -0,0 +1,16 @@
+package guru.springframework.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Read-only view of a recipe for listing pages. Built with a JPQL constructor
+ * expression so that listings never load directions, notes or image columns.
+ */
+@Getter
+@AllArgsConstructor
+public class RecipeSummary {
+
+    private final Long id;
+    private final String description;
+}
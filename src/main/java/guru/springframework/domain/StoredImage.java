@@ -0,0 +1,67 @@
+package guru.springframework.domain;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.data.domain.Persistable;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Lob;
+import javax.persistence.PostLoad;
+import javax.persistence.PostPersist;
+import javax.persistence.Transient;
+import java.sql.Blob;
+
+/**
+ * Image content in the database backed image store, keyed by its SHA-256 hash.
+ */
+@Getter
+@Setter
+@Entity
+public class StoredImage implements Persistable<String> {
+
+    @Id
+    private String hash;
+
+    @Lob
+    private Blob content;
+
+    // the id is assigned, so tell Spring Data when to persist instead of merging the blob
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private boolean newImage = true;
+
+    @Override
+    public String getId() {
+        return hash;
+    }
+
+    @Override
+    public boolean isNew() {
+        return newImage;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.newImage = false;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof StoredImage)) {
+            return false;
+        }
+        return hash != null && hash.equals(((StoredImage) o).getHash());
+    }
+
+    @Override
+    public int hashCode() {
+        return StoredImage.class.hashCode();
+    }
+}
@@ -1,18 +1,26 @@
 package guru.springframework.domain;
 
 import lombok.Data;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Immutable;
 
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.SequenceGenerator;
 
 @Data
 @Entity
+// reference data, never changed by the application once inserted, which read-only caching relies on
+@Immutable
+@Cache(usage = CacheConcurrencyStrategy.READ_ONLY, region = "unitOfMeasure")
 public class UnitOfMeasure {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "unit_of_measure_seq")
+    @SequenceGenerator(name = "unit_of_measure_seq", sequenceName = "unit_of_measure_seq", allocationSize = 50)
     private Long id;
     private String description;
 
@@ -32,4 +40,20 @@ public class UnitOfMeasure {
     public void setDescription(String description) {
         this.description = description;
     }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof UnitOfMeasure)) {
+            return false;
+        }
+        return id != null && id.equals(((UnitOfMeasure) o).getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return UnitOfMeasure.class.hashCode();
+    }
 }
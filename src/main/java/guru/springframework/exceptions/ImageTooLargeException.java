@@ -0,0 +1,20 @@
+package guru.springframework.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class ImageTooLargeException extends RuntimeException {
+
+    public ImageTooLargeException() {
+        super();
+    }
+
+    public ImageTooLargeException(String message) {
+        super(message);
+    }
+
+    public ImageTooLargeException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,20 @@
+package guru.springframework.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class UnsupportedImageTypeException extends RuntimeException {
+
+    public UnsupportedImageTypeException() {
+        super();
+    }
+
+    public UnsupportedImageTypeException(String message) {
+        super(message);
+    }
+
+    public UnsupportedImageTypeException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,18 @@
+package guru.springframework.repositories;
+
+import guru.springframework.domain.Ingredient;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface IngredientRepository extends CrudRepository<Ingredient, Long> {
+
+    @Query("select i from Ingredient i left join fetch i.uom where i.id = :id and i.recipe.id = :recipeId")
+    Optional<Ingredient> findByIdAndRecipeId(@Param("id") Long id, @Param("recipeId") Long recipeId);
+
+    @Query("select i from Ingredient i left join fetch i.uom where i.recipe.id = :recipeId order by i.id")
+    List<Ingredient> findAllByRecipeId(@Param("recipeId") Long recipeId);
+}
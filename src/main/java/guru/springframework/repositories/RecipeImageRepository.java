@@ -0,0 +1,33 @@
+package guru.springframework.repositories;
+
+import guru.springframework.domain.ImageContent;
+import guru.springframework.domain.RecipeImage;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+public interface RecipeImageRepository extends CrudRepository<RecipeImage, Long> {
+
+    @Query("select new guru.springframework.domain.ImageContent(i.id, i.contentHash, i.contentType, "
+            + "i.contentLength, i.lastModified) from RecipeImage i where i.id = :recipeId")
+    Optional<ImageContent> findContentByRecipeId(@Param("recipeId") Long recipeId);
+
+    /**
+     * The rendition of the given size, or the original marked provisional if it has not been generated yet.
+     */
+    @Query("select new guru.springframework.domain.ImageContent(i.id, i.contentHash, "
+            + "coalesce(r.contentHash, i.contentHash), coalesce(r.contentType, i.contentType), "
+            + "coalesce(r.contentLength, i.contentLength), coalesce(r.lastModified, i.lastModified), "
+            + "case when r.contentHash is null then true else false end) "
+            + "from RecipeImage i left join i.renditions r on key(r) = :size where i.id = :recipeId")
+    Optional<ImageContent> findRenditionContentByRecipeId(@Param("recipeId") Long recipeId, @Param("size") Integer size);
+
+    /**
+     * Whether any image or rendition points at the stored content.
+     */
+    @Query("select case when count(i) > 0 then true else false end from RecipeImage i left join i.renditions r "
+            + "where i.contentHash = :hash or r.contentHash = :hash")
+    boolean isContentReferenced(@Param("hash") String hash);
+}
@@ -1,7 +1,39 @@
 package guru.springframework.repositories;
 
 import guru.springframework.domain.Recipe;
-import org.springframework.data.repository.CrudRepository;
+import guru.springframework.domain.RecipeSummary;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.data.repository.query.Param;
 
-public interface RecipeRepository extends CrudRepository<Recipe, Long> {
+import javax.persistence.LockModeType;
+import java.util.List;
+import java.util.Optional;
+
+public interface RecipeRepository extends PagingAndSortingRepository<Recipe, Long> {
+
+    // keyset (seek) pagination: uses the primary key index instead of OFFSET scanning
+    @Query("select new guru.springframework.domain.RecipeSummary(r.id, r.description) " +
+            "from Recipe r where r.id > :id order by r.id")
+    List<RecipeSummary> findSummariesByIdGreaterThan(@Param("id") Long id, Pageable pageable);
+
+    @Query("select r.version from Recipe r where r.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    @EntityGraph(Recipe.DETAILS_GRAPH)
+    Optional<Recipe> findDetailedById(Long id);
+
+    @EntityGraph(Recipe.INGREDIENTS_GRAPH)
+    Optional<Recipe> findForIngredientsById(Long id);
+
+    /**
+     * Loads the recipe and increments its version when the transaction commits, for changes made to its
+     * ingredients or image, which are not part of the recipe row.
+     */
+    @Lock(LockModeType.OPTIMISTIC_FORCE_INCREMENT)
+    @Query("select r from Recipe r where r.id = :id")
+    Optional<Recipe> findAndIncrementVersionById(@Param("id") Long id);
 }
@@ -0,0 +1,13 @@
+package guru.springframework.repositories;
+
+import guru.springframework.domain.StoredImage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+
+public interface StoredImageRepository extends JpaRepository<StoredImage, String> {
+
+    @Query("select s.hash from StoredImage s")
+    List<String> findAllHashes();
+}
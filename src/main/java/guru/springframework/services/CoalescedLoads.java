@@ -0,0 +1,48 @@
+package guru.springframework.services;
+
+import guru.springframework.domain.ImageContent;
+import guru.springframework.domain.RecipeDetails;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The services' single flight loads, kept here so how many callers shared another caller's load can be watched.
+ */
+@Component
+@ManagedResource(objectName = "guru.springframework:type=CoalescedLoads")
+public class CoalescedLoads {
+
+    private final SingleFlight<Long, RecipeDetails> recipeDetails = new SingleFlight<>();
+    private final SingleFlight<String, ImageContent> imageContent = new SingleFlight<>();
+    private final SingleFlight<String, ByteBuffer> imageBytes = new SingleFlight<>();
+
+    SingleFlight<Long, RecipeDetails> recipeDetails() {
+        return recipeDetails;
+    }
+
+    SingleFlight<String, ImageContent> imageContent() {
+        return imageContent;
+    }
+
+    SingleFlight<String, ByteBuffer> imageBytes() {
+        return imageBytes;
+    }
+
+    @ManagedAttribute
+    public long getRecipeDetailsCoalesced() {
+        return recipeDetails.getCoalesced();
+    }
+
+    @ManagedAttribute
+    public long getImageContentCoalesced() {
+        return imageContent.getCoalesced();
+    }
+
+    @ManagedAttribute
+    public long getImageBytesCoalesced() {
+        return imageBytes.getCoalesced();
+    }
+}
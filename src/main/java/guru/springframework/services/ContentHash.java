@@ -0,0 +1,44 @@
+package guru.springframework.services;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Hex encoded SHA-256 hashes, the keys of the image store.
+ */
+final class ContentHash {
+
+    private ContentHash() {
+    }
+
+    static String of(InputStream inputStream) throws IOException {
+        MessageDigest digest = sha256();
+        byte[] buffer = new byte[8192];
+
+        int n;
+        while ((n = inputStream.read(buffer)) != -1) {
+            digest.update(buffer, 0, n);
+        }
+
+        return hex(digest.digest());
+    }
+
+    static String of(byte[] content) {
+        return hex(sha256().digest(content));
+    }
+
+    private static String hex(byte[] hash) {
+        return String.format("%064x", new BigInteger(1, hash));
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
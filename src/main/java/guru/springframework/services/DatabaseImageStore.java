@@ -0,0 +1,99 @@
+package guru.springframework.services;
+
+import guru.springframework.domain.StoredImage;
+import guru.springframework.exceptions.NotFoundException;
+import guru.springframework.repositories.StoredImageRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.jdbc.BlobProxy;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.sql.SQLException;
+
+/**
+ * Keeps image content as blobs in the stored_image table. This is the default store.
+ */
+@Slf4j
+@Component
+public class DatabaseImageStore implements ImageStore {
+
+    private final StoredImageRepository storedImageRepository;
+
+    public DatabaseImageStore(StoredImageRepository storedImageRepository) {
+        this.storedImageRepository = storedImageRepository;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public boolean contains(String hash) {
+        return storedImageRepository.existsById(hash);
+    }
+
+    @Override
+    @Transactional
+    public void save(String hash, long length, InputStream content) {
+        if (storedImageRepository.existsById(hash)) {
+            log.debug("Image {} is already stored.", hash);
+            return;
+        }
+
+        StoredImage storedImage = new StoredImage();
+        storedImage.setHash(hash);
+        // piped into the JDBC blob in chunks, flushed while the caller's stream is still open
+        storedImage.setContent(BlobProxy.generateProxy(content, length));
+        storedImageRepository.saveAndFlush(storedImage);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void transferTo(String hash, WritableByteChannel target) throws IOException {
+        StoredImage storedImage = storedImageRepository.findById(hash)
+                .orElseThrow(() -> new NotFoundException(String.format("Image not found (hash: %s)", hash)));
+
+        try (InputStream inputStream = storedImage.getContent().getBinaryStream()) {
+            StreamUtils.copy(inputStream, Channels.newOutputStream(target));
+        } catch (SQLException e) {
+            throw new IOException("Could not read image " + hash, e);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void transferTo(String hash, long position, long count, WritableByteChannel target) throws IOException {
+        StoredImage storedImage = storedImageRepository.findById(hash)
+                .orElseThrow(() -> new NotFoundException(String.format("Image not found (hash: %s)", hash)));
+
+        // blob positions are one based
+        try (InputStream inputStream = storedImage.getContent().getBinaryStream(position + 1, count)) {
+            StreamUtils.copy(inputStream, Channels.newOutputStream(target));
+        } catch (SQLException e) {
+            throw new IOException("Could not read image " + hash, e);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public <T> T read(String hash, ContentReader<T> reader) throws IOException {
+        StoredImage storedImage = storedImageRepository.findById(hash)
+                .orElseThrow(() -> new NotFoundException(String.format("Image not found (hash: %s)", hash)));
+
+        try (InputStream inputStream = storedImage.getContent().getBinaryStream()) {
+            return reader.read(inputStream);
+        } catch (SQLException e) {
+            throw new IOException("Could not read image " + hash, e);
+        }
+    }
+
+    @Override
+    @Transactional
+    public void delete(String hash) {
+        if (storedImageRepository.existsById(hash)) {
+            storedImageRepository.deleteById(hash);
+        }
+    }
+}
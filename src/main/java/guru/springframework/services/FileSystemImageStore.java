@@ -0,0 +1,101 @@
+package guru.springframework.services;
+
+import guru.springframework.exceptions.NotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Keeps image content as files named by their hash, fanned out into sub directories
+ * by the first two hash characters. Enabled with {@code recipe.image.store=filesystem}.
+ */
+@Slf4j
+@Primary
+@Component
+@ConditionalOnProperty(name = "recipe.image.store", havingValue = "filesystem")
+public class FileSystemImageStore implements ImageStore {
+
+    private final Path root;
+
+    public FileSystemImageStore(@Value("${recipe.image.store.directory}") String directory) {
+        this.root = Paths.get(directory);
+    }
+
+    @Override
+    public boolean contains(String hash) {
+        return Files.exists(pathOf(hash));
+    }
+
+    @Override
+    public void save(String hash, long length, InputStream content) throws IOException {
+        Path target = pathOf(hash);
+        if (Files.exists(target)) {
+            log.debug("Image {} is already stored.", hash);
+            return;
+        }
+
+        Files.createDirectories(target.getParent());
+
+        // write next to the target and move it in place, so readers never see a partial file
+        Path temp = Files.createTempFile(target.getParent(), hash, ".tmp");
+        try {
+            Files.copy(content, temp, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            log.debug("Image {} was stored concurrently.", hash);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    public void transferTo(String hash, WritableByteChannel target) throws IOException {
+        transferTo(hash, 0, Long.MAX_VALUE, target);
+    }
+
+    @Override
+    public void transferTo(String hash, long position, long count, WritableByteChannel target) throws IOException {
+        try (FileChannel fileChannel = FileChannel.open(pathOf(hash), StandardOpenOption.READ)) {
+            // a streaming copy through the JDK's transfer buffer; the servlet output is not a socket or file
+            // channel, so this does not become a sendfile, but the image is never held in memory as a whole
+            long end = Math.min(fileChannel.size(), position + Math.min(count, fileChannel.size()));
+            while (position < end) {
+                position += fileChannel.transferTo(position, end - position, target);
+            }
+        } catch (NoSuchFileException e) {
+            throw new NotFoundException(String.format("Image not found (hash: %s)", hash));
+        }
+    }
+
+    @Override
+    public <T> T read(String hash, ContentReader<T> reader) throws IOException {
+        try (InputStream inputStream = Files.newInputStream(pathOf(hash))) {
+            return reader.read(inputStream);
+        } catch (NoSuchFileException e) {
+            throw new NotFoundException(String.format("Image not found (hash: %s)", hash));
+        }
+    }
+
+    @Override
+    public void delete(String hash) throws IOException {
+        Files.deleteIfExists(pathOf(hash));
+    }
+
+    private Path pathOf(String hash) {
+        return root.resolve(hash.substring(0, 2)).resolve(hash);
+    }
+}
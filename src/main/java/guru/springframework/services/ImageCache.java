@@ -0,0 +1,150 @@
+package guru.springframework.services;
+
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Least recently used image bytes, bounded by their total size rather than the number of entries.
+ * Entries are keyed by recipe id and content hash, so a new upload never sees stale bytes.
+ * The buffers can be allocated outside the heap to keep large images away from the garbage collector.
+ */
+@Component
+@ManagedResource(objectName = "guru.springframework:type=ImageCache")
+public class ImageCache {
+
+    private final long maxSize;
+    private final boolean direct;
+
+    // access ordered, the eldest entry is the least recently used
+    private final LinkedHashMap<Key, ByteBuffer> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long size;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public ImageCache(@Value("${recipe.image.cache.max-size-bytes}") long maxSize,
+                      @Value("${recipe.image.cache.direct}") boolean direct) {
+        this.maxSize = maxSize;
+        this.direct = direct;
+    }
+
+    /**
+     * Returns a read-only view of the cached bytes, or null.
+     */
+    public ByteBuffer get(Long recipeId, String contentHash) {
+        ByteBuffer buffer;
+        synchronized (this) {
+            buffer = entries.get(new Key(recipeId, contentHash));
+        }
+
+        if (buffer == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+
+        hits.incrementAndGet();
+        return buffer.asReadOnlyBuffer();
+    }
+
+    /**
+     * Whether content of the given length fits at all, larger images are always read from the store.
+     */
+    public boolean accepts(long length) {
+        return length <= maxSize;
+    }
+
+    /**
+     * Creates a buffer for content about to be cached, direct if configured so.
+     */
+    public ByteBuffer allocate(int length) {
+        return direct ? ByteBuffer.allocateDirect(length) : ByteBuffer.allocate(length);
+    }
+
+    /**
+     * Caches a filled buffer (position 0, limit at the end of the content), evicting the least recently used
+     * entries until it fits.
+     */
+    public synchronized void put(Long recipeId, String contentHash, ByteBuffer content) {
+        if (!accepts(content.remaining())) {
+            return;
+        }
+
+        ByteBuffer previous = entries.put(new Key(recipeId, contentHash), content);
+        if (previous != null) {
+            size -= previous.remaining();
+        }
+        size += content.remaining();
+
+        Iterator<ByteBuffer> eldest = entries.values().iterator();
+        while (size > maxSize) {
+            size -= eldest.next().remaining();
+            eldest.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    /**
+     * Drops all images of a recipe, its original as well as the renditions.
+     */
+    public synchronized void evict(Long recipeId) {
+        Iterator<Map.Entry<Key, ByteBuffer>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Key, ByteBuffer> entry = iterator.next();
+            if (entry.getKey().recipeId.equals(recipeId)) {
+                size -= entry.getValue().remaining();
+                iterator.remove();
+            }
+        }
+    }
+
+    @ManagedOperation
+    public synchronized void clear() {
+        entries.clear();
+        size = 0;
+    }
+
+    @ManagedAttribute
+    public long getHits() {
+        return hits.get();
+    }
+
+    @ManagedAttribute
+    public long getMisses() {
+        return misses.get();
+    }
+
+    @ManagedAttribute
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    @ManagedAttribute
+    public synchronized long getSize() {
+        return size;
+    }
+
+    @ManagedAttribute
+    public synchronized int getEntryCount() {
+        return entries.size();
+    }
+
+    @EqualsAndHashCode
+    @RequiredArgsConstructor
+    private static class Key {
+
+        private final Long recipeId;
+        private final String contentHash;
+    }
+}
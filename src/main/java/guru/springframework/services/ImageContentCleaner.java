@@ -0,0 +1,54 @@
+package guru.springframework.services;
+
+import guru.springframework.config.AsyncConfig;
+import guru.springframework.repositories.RecipeImageRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.util.Collection;
+
+/**
+ * Deletes stored image content nothing points at any more. Content is shared by every image and rendition with
+ * the same bytes, so it is only deleted once no image or rendition references it.
+ * Runs on the rendition pool rather than in the committed upload's thread, whose transaction can no longer commit.
+ */
+@Slf4j
+@Component
+public class ImageContentCleaner {
+
+    private final RecipeImageRepository recipeImageRepository;
+    private final ImageStore imageStore;
+
+    public ImageContentCleaner(RecipeImageRepository recipeImageRepository, ImageStore imageStore) {
+        this.recipeImageRepository = recipeImageRepository;
+        this.imageStore = imageStore;
+    }
+
+    @Async(AsyncConfig.IMAGE_RENDITION_EXECUTOR)
+    @TransactionalEventListener
+    public void onImageReplaced(RecipeImageReplacedEvent event) {
+        deleteUnreferenced(event.getContentHashes());
+    }
+
+    /**
+     * An upload of the same bytes that found them stored just before they are deleted is left without content,
+     * serving the recipe's image fails until it is uploaded again.
+     */
+    public void deleteUnreferenced(Collection<String> contentHashes) {
+        for (String hash : contentHashes) {
+            if (recipeImageRepository.isContentReferenced(hash)) {
+                continue;
+            }
+
+            log.debug("Deleting unreferenced image {}", hash);
+            try {
+                imageStore.delete(hash);
+            } catch (IOException e) {
+                log.error("Error occured when trying to delete image " + hash, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package guru.springframework.services;
+
+import guru.springframework.config.AsyncConfig;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Generates the renditions of a newly uploaded image in the background, once the upload has committed.
+ * Implements no interface, so the async proxy is a class proxy that keeps the listener annotations visible.
+ */
+@Component
+public class ImageRenditionListener {
+
+    private final ImageRenditionService imageRenditionService;
+
+    public ImageRenditionListener(ImageRenditionService imageRenditionService) {
+        this.imageRenditionService = imageRenditionService;
+    }
+
+    @Async(AsyncConfig.IMAGE_RENDITION_EXECUTOR)
+    @TransactionalEventListener
+    public void onImageSaved(RecipeImageSavedEvent event) {
+        imageRenditionService.createRenditions(event.getRecipeId(), event.getContentHash());
+    }
+}
@@ -0,0 +1,6 @@
+package guru.springframework.services;
+
+public interface ImageRenditionService {
+
+    void createRenditions(Long recipeId, String contentHash);
+}
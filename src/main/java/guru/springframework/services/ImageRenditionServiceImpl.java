@@ -0,0 +1,202 @@
+package guru.springframework.services;
+
+import guru.springframework.domain.ImageRendition;
+import guru.springframework.domain.RecipeImage;
+import guru.springframework.exceptions.NotFoundException;
+import guru.springframework.repositories.RecipeImageRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+@Slf4j
+@Service
+public class ImageRenditionServiceImpl implements ImageRenditionService {
+
+    private final RecipeImageRepository recipeImageRepository;
+    private final ImageStore imageStore;
+    private final ImageContentCleaner imageContentCleaner;
+    private final TransactionTemplate transactionTemplate;
+    private final int[] renditionSizes;
+    private final long maxPixels;
+
+    public ImageRenditionServiceImpl(RecipeImageRepository recipeImageRepository, ImageStore imageStore,
+                                     ImageContentCleaner imageContentCleaner,
+                                     PlatformTransactionManager transactionManager,
+                                     @Value("${recipe.image.rendition.sizes}") int[] renditionSizes,
+                                     @Value("${recipe.image.rendition.max-pixels}") long maxPixels) {
+        this.recipeImageRepository = recipeImageRepository;
+        this.imageStore = imageStore;
+        this.imageContentCleaner = imageContentCleaner;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.renditionSizes = renditionSizes.clone();
+        this.maxPixels = maxPixels;
+    }
+
+    @Override
+    public void createRenditions(Long recipeId, String contentHash) {
+        log.debug("Creating renditions of image {}", contentHash);
+
+        Map<Integer, ImageRendition> renditions = new HashMap<>();
+
+        try {
+            DecodedImage decoded = imageStore.read(contentHash, content -> decode(contentHash, content));
+            if (decoded == null) {
+                return;
+            }
+
+            BufferedImage image = decoded.image;
+            int decodedLongestSide = Math.max(image.getWidth(), image.getHeight());
+            for (int size : renditionSizes) {
+                // images are never scaled up, larger sizes are left to point at the original
+                if (size < decoded.longestSide) {
+                    renditions.put(size, resize(image, (double) size / decodedLongestSide));
+                }
+            }
+        } catch (NotFoundException e) {
+            log.debug("Image {} was replaced and deleted before its renditions were created.", contentHash);
+            return;
+        } catch (IOException e) {
+            log.error("Error occured when trying to create image renditions.", e);
+            return;
+        }
+
+        boolean saved = transactionTemplate.execute(status -> recipeImageRepository.findById(recipeId)
+                // a newer upload has replaced the image in the meantime
+                .filter(recipeImage -> contentHash.equals(recipeImage.getContentHash()))
+                .map(recipeImage -> saveRenditions(recipeImage, renditions))
+                .orElse(false));
+
+        if (!saved) {
+            // the renditions just stored may be of an image nothing shows any more
+            Set<String> contentHashes = new HashSet<>();
+            for (ImageRendition rendition : renditions.values()) {
+                contentHashes.add(rendition.getContentHash());
+            }
+            imageContentCleaner.deleteUnreferenced(contentHashes);
+        }
+    }
+
+    /**
+     * Decodes the image just large enough for the largest rendition, or returns null if it cannot be read or has
+     * more pixels than allowed. The dimensions are read from the header first, so an image that is small on disk
+     * but huge in pixels is rejected before its raster is allocated.
+     */
+    private DecodedImage decode(String contentHash, InputStream content) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(content)) {
+            Iterator<ImageReader> readers = input != null ? ImageIO.getImageReaders(input) : null;
+            if (readers == null || !readers.hasNext()) {
+                log.warn("Image {} is not in a readable format, serving the original only.", contentHash);
+                return null;
+            }
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxPixels) {
+                    log.warn("Image {} has {}x{} pixels, more than the {} allowed, serving the original only.",
+                            contentHash, width, height, maxPixels);
+                    return null;
+                }
+
+                // every n-th pixel is decoded, keeping at least twice the largest rendition size so the
+                // resized images stay smooth
+                int longestSide = Math.max(width, height);
+                int subsampling = Math.max(1, longestSide / (2 * largestRenditionSize()));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+
+                return new DecodedImage(reader.read(0, param), longestSide);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private int largestRenditionSize() {
+        int largest = 1;
+        for (int size : renditionSizes) {
+            largest = Math.max(largest, size);
+        }
+        return largest;
+    }
+
+    private boolean saveRenditions(RecipeImage recipeImage, Map<Integer, ImageRendition> renditions) {
+        ImageRendition original = new ImageRendition(recipeImage.getContentHash(),
+                recipeImage.getContentType(), recipeImage.getContentLength());
+
+        // every size is stamped with when it stopped being served provisionally, for Last-Modified
+        Instant now = Instant.now();
+        for (int size : renditionSizes) {
+            ImageRendition rendition = renditions.getOrDefault(size, original);
+            recipeImage.getRenditions().put(size, new ImageRendition(rendition.getContentHash(),
+                    rendition.getContentType(), rendition.getContentLength(), now));
+        }
+
+        recipeImageRepository.save(recipeImage);
+        return true;
+    }
+
+    private ImageRendition resize(BufferedImage original, double scale) throws IOException {
+        int width = Math.max(1, (int) Math.round(original.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(original.getHeight() * scale));
+        boolean alpha = original.getColorModel().hasAlpha();
+
+        BufferedImage resized = new BufferedImage(width, height,
+                alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = resized.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(original, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+
+        // jpeg has no alpha channel, transparent images stay png
+        String format = alpha ? "png" : "jpg";
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        ImageIO.write(resized, format, encoded);
+        byte[] bytes = encoded.toByteArray();
+
+        String hash = ContentHash.of(bytes);
+        if (!imageStore.contains(hash)) {
+            imageStore.save(hash, bytes.length, new ByteArrayInputStream(bytes));
+        }
+
+        return new ImageRendition(hash, alpha ? "image/png" : "image/jpeg", (long) bytes.length);
+    }
+
+    private static class DecodedImage {
+
+        private final BufferedImage image;
+        // of the original, which decides the sizes to generate
+        private final int longestSide;
+
+        DecodedImage(BufferedImage image, int longestSide) {
+            this.image = image;
+            this.longestSide = longestSide;
+        }
+    }
+}
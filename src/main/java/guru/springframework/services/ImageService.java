@@ -1,8 +1,25 @@
 package guru.springframework.services;
 
+import guru.springframework.domain.ImageContent;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+
 public interface ImageService {
 
     void saveImageFile(Long recipeId, MultipartFile file);
+
+    /**
+     * Returns the original image of a recipe, or null if it has none. Reads the metadata only, in one query.
+     */
+    ImageContent loadImage(Long recipeId);
+
+    /**
+     * Returns the image to serve for a recipe, or null if it has none. With a size the smallest
+     * rendition at least that large is picked, falling back to the original.
+     */
+    ImageContent loadImage(Long recipeId, Integer size);
+
+    void writeImage(ImageContent content, long position, long count, WritableByteChannel target) throws IOException;
 }
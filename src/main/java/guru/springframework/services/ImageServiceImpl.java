@@ -1,51 +1,242 @@
 package guru.springframework.services;
 
+import guru.springframework.domain.ImageContent;
+import guru.springframework.domain.ImageRendition;
 import guru.springframework.domain.Recipe;
+import guru.springframework.domain.RecipeImage;
+import guru.springframework.exceptions.ImageTooLargeException;
+import guru.springframework.exceptions.NotFoundException;
+import guru.springframework.exceptions.UnsupportedImageTypeException;
+import guru.springframework.repositories.RecipeImageRepository;
 import guru.springframework.repositories.RecipeRepository;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
 
 @Slf4j
 @Service
 public class ImageServiceImpl implements ImageService {
 
     private final RecipeRepository recipeRepository;
+    private final RecipeImageRepository recipeImageRepository;
+    private final ImageStore imageStore;
+    private final ImageCache imageCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final long maxImageSize;
+    private final int[] renditionSizes;
 
-    public ImageServiceImpl(RecipeRepository recipeRepository) {
+    // concurrent requests for the same image share one metadata query and one read from the store
+    private final SingleFlight<String, ImageContent> contentLoads;
+    private final SingleFlight<String, ByteBuffer> byteLoads;
+
+    public ImageServiceImpl(RecipeRepository recipeRepository, RecipeImageRepository recipeImageRepository,
+                            ImageStore imageStore, ImageCache imageCache, ApplicationEventPublisher eventPublisher,
+                            @Value("${recipe.image.max-size-bytes}") long maxImageSize,
+                            @Value("${recipe.image.rendition.sizes}") int[] renditionSizes,
+                            CoalescedLoads coalescedLoads) {
         this.recipeRepository = recipeRepository;
+        this.recipeImageRepository = recipeImageRepository;
+        this.imageStore = imageStore;
+        this.imageCache = imageCache;
+        this.eventPublisher = eventPublisher;
+        this.maxImageSize = maxImageSize;
+        this.renditionSizes = renditionSizes.clone();
+        Arrays.sort(this.renditionSizes);
+        this.contentLoads = coalescedLoads.imageContent();
+        this.byteLoads = coalescedLoads.imageBytes();
     }
 
     @Override
+    @Transactional
     public void saveImageFile(Long recipeId, MultipartFile file) {
         log.debug("Received a file.");
 
+        if (file.getSize() > maxImageSize) {
+            throw new ImageTooLargeException(String.format("Image is larger than %d bytes", maxImageSize));
+        }
+
+        RecipeImage recipeImage = recipeImageRepository.findById(recipeId)
+                .orElseGet(() -> newRecipeImage(recipeId));
+
         try {
-            Recipe recipe = recipeRepository.findById(recipeId).get();
+            // The upload is read from the container's spooled file to recognise its type, then to hash it
+            // and, unless the store already has it, once more to stream it into the store.
+            String contentType = contentType(file);
+            String hash = hash(file);
 
-            // We want to convert byte array to Byte array,
-            // so it can store null values as well. Recipe class
-            // has Byte array for image (good Spring/Hibernate practice
-            // to use wrapper classes instead of primitive types).
+            if (!imageStore.contains(hash)) {
+                try (InputStream inputStream = file.getInputStream()) {
+                    imageStore.save(hash, file.getSize(), inputStream);
+                }
+            }
 
-            Byte[] byteObjects = new Byte[file.getBytes().length];
-            for (int i = 0; i < file.getBytes().length; i++) {
-                byteObjects[i] = file.getBytes()[i];
+            if (!hash.equals(recipeImage.getContentHash())) {
+                if (recipeImage.getContentHash() != null) {
+                    // the previous content is deleted after commit unless another image still uses it
+                    eventPublisher.publishEvent(new RecipeImageReplacedEvent(recipeId, contentHashes(recipeImage)));
+                }
+                // renditions of the previous image are stale, new ones are generated after commit
+                recipeImage.getRenditions().clear();
+                imageCache.evict(recipeId);
+                // the recipe's version covers its image too
+                recipeRepository.findAndIncrementVersionById(recipeId);
+                eventPublisher.publishEvent(new RecipeImageSavedEvent(recipeId, hash));
             }
 
-            recipe.setImage(byteObjects);
+            recipeImage.setContentHash(hash);
+            recipeImage.setContentLength(file.getSize());
+            recipeImage.setContentType(contentType);
+            recipeImage.setLastModified(Instant.now());
 
-            // Saving images to filesystem is considered non-optimal solution
-            // if we want to keep our app portable.
-            // But with larger images db can become slow. Optionally we can
-            // save images to filesystem or cloud like AWS S3.
-            recipeRepository.save(recipe);
+            recipeImageRepository.save(recipeImage);
         } catch (IOException e) {
             log.error("Error occured when trying to save image file.", e);
+        }
+    }
+
+    @Override
+    public ImageContent loadImage(Long recipeId) {
+        return contentLoads.load(recipeId + "/original",
+                () -> recipeImageRepository.findContentByRecipeId(recipeId).orElse(null));
+    }
+
+    @Override
+    public ImageContent loadImage(Long recipeId, Integer size) {
+        Integer renditionSize = renditionSize(size);
+        if (renditionSize == null) {
+            return loadImage(recipeId);
+        }
+
+        return contentLoads.load(recipeId + "/" + renditionSize,
+                () -> recipeImageRepository.findRenditionContentByRecipeId(recipeId, renditionSize).orElse(null));
+    }
+
+    @Override
+    public void writeImage(ImageContent content, long position, long count, WritableByteChannel target) throws IOException {
+        ByteBuffer cached = imageCache.get(content.getRecipeId(), content.getContentHash());
+        if (cached == null && imageCache.accepts(content.getContentLength())) {
+            // each caller gets its own view of the shared buffer
+            cached = byteLoads.load(content.getContentHash(), () -> load(content)).asReadOnlyBuffer();
+        }
+
+        if (cached == null) {
+            imageStore.transferTo(content.getContentHash(), position, count, target);
+            return;
+        }
+
+        cached.limit((int) (position + count));
+        cached.position((int) position);
+        while (cached.hasRemaining()) {
+            target.write(cached);
+        }
+    }
+
+    /**
+     * Reads the whole image from the store into a new cache entry and returns it, not to be modified.
+     */
+    private ByteBuffer load(ImageContent content) throws IOException {
+        ByteBuffer buffer = imageCache.allocate(content.getContentLength().intValue());
+        imageStore.transferTo(content.getContentHash(), new ByteBufferChannel(buffer));
+        buffer.flip();
+        if (buffer.remaining() != content.getContentLength()) {
+            throw new IOException("Image is shorter than its recorded length");
+        }
+
+        imageCache.put(content.getRecipeId(), content.getContentHash(), buffer);
+        return buffer;
+    }
+
+    /**
+     * The smallest configured rendition size that is at least the requested size, or null for the original.
+     */
+    private Integer renditionSize(Integer size) {
+        if (size == null) {
+            return null;
+        }
+        for (int renditionSize : renditionSizes) {
+            if (renditionSize >= size) {
+                return renditionSize;
+            }
+        }
+        return null;
+    }
+
+    private String contentType(MultipartFile file) throws IOException {
+        String contentType;
+        try (InputStream inputStream = file.getInputStream()) {
+            contentType = ImageTypes.of(inputStream);
+        }
+        if (contentType == null) {
+            throw new UnsupportedImageTypeException("Image must be a JPEG, PNG, GIF or WebP image");
+        }
+        return contentType;
+    }
+
+    private String hash(MultipartFile file) throws IOException {
+        // the size limit is checked again while streaming in case the declared size was wrong
+        try (InputStream inputStream = new SizeLimitedInputStream(file.getInputStream(), maxImageSize)) {
+            return ContentHash.of(inputStream);
+        }
+    }
+
+    private static Set<String> contentHashes(RecipeImage recipeImage) {
+        Set<String> contentHashes = new HashSet<>();
+        contentHashes.add(recipeImage.getContentHash());
+        for (ImageRendition rendition : recipeImage.getRenditions().values()) {
+            contentHashes.add(rendition.getContentHash());
+        }
+        return contentHashes;
+    }
+
+    private RecipeImage newRecipeImage(Long recipeId) {
+        Recipe recipe = recipeRepository.findById(recipeId)
+                .orElseThrow(() -> new NotFoundException(String.format("Recipe not found (recipe id: %d)", recipeId)));
+
+        RecipeImage recipeImage = new RecipeImage();
+        recipeImage.setRecipe(recipe);
+        return recipeImage;
+    }
+
+    /**
+     * Fills a buffer of the expected content length, failing if the store has more than that.
+     */
+    private static class ByteBufferChannel implements WritableByteChannel {
+
+        private final ByteBuffer buffer;
+
+        ByteBufferChannel(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            if (src.remaining() > buffer.remaining()) {
+                throw new IOException("Image is larger than its recorded length");
+            }
+            int n = src.remaining();
+            buffer.put(src);
+            return n;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
 
-            e.printStackTrace();
+        @Override
+        public void close() {
         }
     }
 }
@@ -0,0 +1,39 @@
+package guru.springframework.services;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Content addressed storage for image bytes. Content is stored under the hex encoded
+ * SHA-256 hash of its bytes, so storing the same image twice keeps a single copy.
+ */
+public interface ImageStore {
+
+    boolean contains(String hash);
+
+    /**
+     * Streams {@code length} bytes from {@code content} into the store. Does nothing if the hash is already stored.
+     */
+    void save(String hash, long length, InputStream content) throws IOException;
+
+    void transferTo(String hash, WritableByteChannel target) throws IOException;
+
+    /**
+     * Transfers {@code count} bytes starting at {@code position} (zero based), used for range requests.
+     */
+    void transferTo(String hash, long position, long count, WritableByteChannel target) throws IOException;
+
+    /**
+     * Passes a stream of the content to {@code reader}, which may only use it until it returns.
+     */
+    <T> T read(String hash, ContentReader<T> reader) throws IOException;
+
+    void delete(String hash) throws IOException;
+
+    @FunctionalInterface
+    interface ContentReader<T> {
+
+        T read(InputStream content) throws IOException;
+    }
+}
@@ -0,0 +1,71 @@
+package guru.springframework.services;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+/**
+ * The image types recipe images may have. An upload's type is recognised from its bytes, the type the client
+ * declares is never stored or served, as that would let any content be served as a page of the site.
+ */
+public final class ImageTypes {
+
+    public static final Set<String> CONTENT_TYPES = Collections.unmodifiableSet(new HashSet<>(
+            Arrays.asList("image/jpeg", "image/png", "image/gif", "image/webp")));
+
+    private static final byte[] RIFF = "RIFF".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] WEBP = "WEBP".getBytes(StandardCharsets.US_ASCII);
+
+    private ImageTypes() {
+    }
+
+    /**
+     * The content type of the image, or null if it is not one of the allowed types.
+     */
+    static String of(InputStream inputStream) throws IOException {
+        // only the header is read, and cached in memory rather than in a temporary file
+        try (ImageInputStream imageInputStream = new MemoryCacheImageInputStream(inputStream)) {
+            if (isWebp(imageInputStream)) {
+                return "image/webp";
+            }
+
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(imageInputStream);
+            while (readers.hasNext()) {
+                ImageReader reader = readers.next();
+                try {
+                    for (String contentType : reader.getOriginatingProvider().getMIMETypes()) {
+                        if (CONTENT_TYPES.contains(contentType)) {
+                            return contentType;
+                        }
+                    }
+                } finally {
+                    reader.dispose();
+                }
+            }
+            return null;
+        }
+    }
+
+    // the JDK has no WebP reader, its container header is checked directly
+    private static boolean isWebp(ImageInputStream imageInputStream) throws IOException {
+        byte[] header = new byte[12];
+        imageInputStream.mark();
+        try {
+            int length = imageInputStream.read(header);
+            return length == header.length
+                    && Arrays.equals(Arrays.copyOfRange(header, 0, 4), RIFF)
+                    && Arrays.equals(Arrays.copyOfRange(header, 8, 12), WEBP);
+        } finally {
+            imageInputStream.reset();
+        }
+    }
+}
@@ -1,6 +1,10 @@
 package guru.springframework.services;
 
 import guru.springframework.commands.IngredientCommand;
+import guru.springframework.domain.IngredientDetails;
+
+import java.util.Collection;
+import java.util.List;
 
 /**
  * Created by jt on 6/27/17.
@@ -11,5 +15,18 @@ public interface IngredientService {
 
     IngredientCommand saveIngredientCommand(IngredientCommand command);
 
+    List<IngredientCommand> findByRecipeId(Long recipeId);
+
+    /**
+     * Read model of the ingredient list, fully loaded so it renders without an open session.
+     */
+    List<IngredientDetails> findDetailsByRecipeId(Long recipeId);
+
+    /**
+     * Inserts the commands without id, updates the others and deletes the given ingredients, all in one transaction.
+     */
+    List<IngredientCommand> saveIngredientCommands(Long recipeId, List<IngredientCommand> commands,
+                                                   Collection<Long> idsToDelete);
+
     void deleteIngredientById(Long recipeId, Long idToDelete);
 }
@@ -3,15 +3,30 @@ package guru.springframework.services;
 import guru.springframework.commands.IngredientCommand;
 import guru.springframework.converters.IngredientCommandToIngredient;
 import guru.springframework.converters.IngredientToIngredientCommand;
+import guru.springframework.converters.IngredientToIngredientDetails;
 import guru.springframework.domain.Ingredient;
+import guru.springframework.domain.IngredientDetails;
 import guru.springframework.domain.Recipe;
+import guru.springframework.domain.UnitOfMeasure;
+import guru.springframework.exceptions.NotFoundException;
+import guru.springframework.repositories.IngredientRepository;
 import guru.springframework.repositories.RecipeRepository;
-import guru.springframework.repositories.UnitOfMeasureRepository;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Created by jt on 6/28/17.
@@ -22,93 +37,125 @@ public class IngredientServiceImpl implements IngredientService {
 
     private final IngredientToIngredientCommand ingredientToIngredientCommand;
     private final IngredientCommandToIngredient ingredientCommandToIngredient;
+    private final IngredientToIngredientDetails ingredientToIngredientDetails;
     private final RecipeRepository recipeRepository;
-    private final UnitOfMeasureRepository unitOfMeasureRepository;
+    private final IngredientRepository ingredientRepository;
+    private final UnitOfMeasureCatalog unitOfMeasureCatalog;
+    private final ApplicationEventPublisher eventPublisher;
 
     public IngredientServiceImpl(IngredientToIngredientCommand ingredientToIngredientCommand,
                                  IngredientCommandToIngredient ingredientCommandToIngredient,
-                                 RecipeRepository recipeRepository, UnitOfMeasureRepository unitOfMeasureRepository) {
+                                 IngredientToIngredientDetails ingredientToIngredientDetails,
+                                 RecipeRepository recipeRepository, IngredientRepository ingredientRepository,
+                                 UnitOfMeasureCatalog unitOfMeasureCatalog, ApplicationEventPublisher eventPublisher) {
         this.ingredientToIngredientCommand = ingredientToIngredientCommand;
         this.ingredientCommandToIngredient = ingredientCommandToIngredient;
+        this.ingredientToIngredientDetails = ingredientToIngredientDetails;
         this.recipeRepository = recipeRepository;
-        this.unitOfMeasureRepository = unitOfMeasureRepository;
+        this.ingredientRepository = ingredientRepository;
+        this.unitOfMeasureCatalog = unitOfMeasureCatalog;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public IngredientCommand findByRecipeIdAndIngredientId(Long recipeId, Long ingredientId) {
+        return ingredientRepository.findByIdAndRecipeId(ingredientId, recipeId)
+                .map(ingredientToIngredientCommand::convert)
+                .orElseThrow(() -> new NotFoundException(String.format(
+                        "Ingredient not found (recipe id: %d, ingredient id: %d)", recipeId, ingredientId)));
+    }
 
-        Optional<Recipe> recipeOptional = recipeRepository.findById(recipeId);
+    @Override
+    @Transactional
+    public IngredientCommand saveIngredientCommand(IngredientCommand command) {
+        Recipe recipe = recipeChanged(command.getRecipeId());
 
-        if (!recipeOptional.isPresent()){
-            //todo impl error handling
-            log.error("recipe id not found. Id: " + recipeId);
+        Ingredient ingredient;
+        if (command.getId() == null) {
+            // references the managed recipe, its other ingredients are not loaded
+            ingredient = ingredientCommandToIngredient.convert(command);
+            ingredient.setRecipe(recipe);
+        } else {
+            ingredient = ingredientRepository.findByIdAndRecipeId(command.getId(), command.getRecipeId())
+                    .orElseThrow(() -> new NotFoundException(String.format(
+                            "Ingredient not found (recipe id: %d, ingredient id: %d)",
+                            command.getRecipeId(), command.getId())));
+            ingredient.setDescription(command.getDescription());
+            ingredient.setAmount(command.getAmount());
         }
+        ingredient.setUom(findUom(command));
 
-        Recipe recipe = recipeOptional.get();
-
-        Optional<IngredientCommand> ingredientCommandOptional = recipe.getIngredients().stream()
-                .filter(ingredient -> ingredient.getId().equals(ingredientId))
-                .map( ingredient -> ingredientToIngredientCommand.convert(ingredient)).findFirst();
+        return ingredientToIngredientCommand.convert(ingredientRepository.save(ingredient));
+    }
 
-        if(!ingredientCommandOptional.isPresent()){
-            //todo impl error handling
-            log.error("Ingredient id not found: " + ingredientId);
-        }
+    @Override
+    @Transactional(readOnly = true)
+    public List<IngredientCommand> findByRecipeId(Long recipeId) {
+        return ingredientRepository.findAllByRecipeId(recipeId).stream()
+                .map(ingredientToIngredientCommand::convert)
+                .collect(Collectors.toList());
+    }
 
-        return ingredientCommandOptional.get();
+    @Override
+    @Transactional(readOnly = true)
+    public List<IngredientDetails> findDetailsByRecipeId(Long recipeId) {
+        Recipe recipe = recipeRepository.findForIngredientsById(recipeId)
+                .orElseThrow(() -> new NotFoundException(String.format("Recipe not found (recipe id: %d)", recipeId)));
+
+        return recipe.getIngredients().stream()
+                .sorted(Comparator.comparing(Ingredient::getId))
+                .map(ingredientToIngredientDetails::convert)
+                .collect(Collectors.toList());
     }
 
     @Override
     @Transactional
-    public IngredientCommand saveIngredientCommand(IngredientCommand command) {
-        Optional<Recipe> recipeOptional = recipeRepository.findById(command.getRecipeId());
-
-        if (!recipeOptional.isPresent()) {
-            // todo toss error if not found!
-            log.error("Recipe not found for id: " + command.getRecipeId());
-            return new IngredientCommand();
-        } else {
-            Recipe recipe = recipeOptional.get();
-
-            Optional<Ingredient> ingredientOptional = recipe
-                    .getIngredients()
-                    .stream()
-                    .filter(ingredient -> ingredient.getId().equals(command.getId()))
-                    .findFirst();
-
-            if (ingredientOptional.isPresent()) {
-                Ingredient ingredientFound = ingredientOptional.get();
-                ingredientFound.setDescription(command.getDescription());
-                ingredientFound.setAmount(command.getAmount());
-                ingredientFound.setUom(unitOfMeasureRepository
-                        .findById(command.getUom().getId())
-                        .orElseThrow(() -> new RuntimeException("UOM NOT FOUND"))); //todo address this
-            } else {
-                //add new Ingredient
-                Ingredient ingredient = ingredientCommandToIngredient.convert(command);
+    public List<IngredientCommand> saveIngredientCommands(Long recipeId, List<IngredientCommand> commands,
+                                                          Collection<Long> idsToDelete) {
+        Recipe recipe = recipeChanged(recipeId);
+
+        // one query for the current ingredients however many commands there are, units of measure come from the catalog
+        Map<Long, Ingredient> existing = ingredientRepository.findAllByRecipeId(recipeId).stream()
+                .collect(Collectors.toMap(Ingredient::getId, Function.identity()));
+        Map<Long, UnitOfMeasure> uoms = findUoms(commands);
+
+        List<Ingredient> deleted = idsToDelete.stream()
+                .map(existing::remove)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        ingredientRepository.deleteAll(deleted);
+
+        List<Ingredient> ingredients = new ArrayList<>(commands.size());
+        for (IngredientCommand command : commands) {
+            Ingredient ingredient;
+
+            if (command.getId() == null) {
+                command.setRecipeId(recipeId);
+                ingredient = ingredientCommandToIngredient.convert(command);
                 ingredient.setRecipe(recipe);
-                recipe.addIngredient(ingredient);
+            } else if (idsToDelete.contains(command.getId())) {
+                continue;
+            } else {
+                ingredient = existing.get(command.getId());
+                if (ingredient == null) {
+                    throw new NotFoundException(String.format(
+                            "Ingredient not found (recipe id: %d, ingredient id: %d)", recipeId, command.getId()));
+                }
+                ingredient.setDescription(command.getDescription());
+                ingredient.setAmount(command.getAmount());
             }
+            ingredient.setUom(command.getUom() != null ? uoms.get(command.getUom().getId()) : null);
 
-            Recipe savedRecipe = recipeRepository.save(recipe);
-
-            Optional<Ingredient> savedIngredientOptional = savedRecipe.getIngredients().stream()
-                    .filter(recipeIngredients -> recipeIngredients.getId().equals(command.getId()))
-                    .findFirst();
-
-            // check by description
-            if (!savedIngredientOptional.isPresent()) {
-                // not totally safe... But best guess
-                savedIngredientOptional = savedRecipe.getIngredients().stream()
-                        .filter(recipeIngredients -> recipeIngredients.getDescription().equals(command.getDescription()))
-                        .filter(recipeIngredients -> recipeIngredients.getAmount().equals(command.getAmount()))
-                        .filter(recipeIngredients -> recipeIngredients.getUom().getId().equals(command.getUom().getId()))
-                        .findFirst();
-            }
+            ingredients.add(ingredient);
+        }
 
-            // to do check for fail
-            return ingredientToIngredientCommand.convert(savedIngredientOptional.get());
+        // the inserts, updates and deletes are sent in JDBC batches when the transaction flushes
+        List<IngredientCommand> saved = new ArrayList<>(ingredients.size());
+        for (Ingredient ingredient : ingredientRepository.saveAll(ingredients)) {
+            saved.add(ingredientToIngredientCommand.convert(ingredient));
         }
+        return saved;
     }
 
     @Override
@@ -116,7 +163,7 @@ public class IngredientServiceImpl implements IngredientService {
     public void deleteIngredientById(Long recipeId, Long idToDelete) {
         log.debug("Deleting ingredient: {}:{}", recipeId, idToDelete);
 
-        Optional<Recipe> recipeOptional = recipeRepository.findById(recipeId);
+        Optional<Recipe> recipeOptional = recipeRepository.findAndIncrementVersionById(recipeId);
 
         if (recipeOptional.isPresent()) {
             Recipe recipe = recipeOptional.get();
@@ -136,9 +183,50 @@ public class IngredientServiceImpl implements IngredientService {
                 recipe.getIngredients().remove(ingredientOptional.get());
 
                 recipeRepository.save(recipe);
+                eventPublisher.publishEvent(new RecipeChangedEvent(recipeId));
             }
         } else {
             log.debug("Recipe id not found (id: {})", recipeId);
         }
     }
+
+    /**
+     * Loads the recipe and increments its version, the ingredients are not part of the recipe row. New ingredients
+     * must reference the returned recipe: a detached stub with only the id set has no version and is transient.
+     */
+    private Recipe recipeChanged(Long recipeId) {
+        Recipe recipe = recipeRepository.findAndIncrementVersionById(recipeId)
+                .orElseThrow(() -> new NotFoundException(String.format("Recipe not found (recipe id: %d)", recipeId)));
+        eventPublisher.publishEvent(new RecipeChangedEvent(recipeId));
+        return recipe;
+    }
+
+    private Map<Long, UnitOfMeasure> findUoms(List<IngredientCommand> commands) {
+        Set<Long> ids = commands.stream()
+                .filter(command -> command.getUom() != null && command.getUom().getId() != null)
+                .map(command -> command.getUom().getId())
+                .collect(Collectors.toSet());
+
+        Map<Long, UnitOfMeasure> uoms = new HashMap<>();
+        ids.forEach(id -> unitOfMeasureCatalog.findById(id).ifPresent(uom -> uoms.put(uom.getId(), uom)));
+
+        ids.stream()
+                .filter(id -> !uoms.containsKey(id))
+                .findFirst()
+                .ifPresent(id -> {
+                    throw new NotFoundException(String.format("Unit of measure not found (id: %d)", id));
+                });
+
+        return uoms;
+    }
+
+    private UnitOfMeasure findUom(IngredientCommand command) {
+        if (command.getUom() == null || command.getUom().getId() == null) {
+            return null;
+        }
+
+        return unitOfMeasureCatalog.findById(command.getUom().getId())
+                .orElseThrow(() -> new NotFoundException(String.format(
+                        "Unit of measure not found (id: %d)", command.getUom().getId())));
+    }
 }
@@ -0,0 +1,113 @@
+package guru.springframework.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Recipe ids recently looked up and not found, so repeated requests for them are answered without a query.
+ * Entries expire after a short time and the oldest are dropped first once the cache is full. An id is dropped
+ * as soon as a recipe is saved under it; a lookup that was running meanwhile is not recorded.
+ */
+@Component
+@ManagedResource(objectName = "guru.springframework:type=MissingRecipeCache")
+public class MissingRecipeCache {
+
+    private final long ttlNanos;
+    private final int maxEntries;
+
+    // insertion ordered, all entries live equally long so the eldest entry expires first
+    private final LinkedHashMap<Long, Long> expiresAt = new LinkedHashMap<>();
+    // incremented whenever an id is dropped
+    private long generation;
+
+    private final AtomicLong lookupsSaved = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public MissingRecipeCache(@Value("${recipe.cache.missing.ttl-seconds}") long ttlSeconds,
+                              @Value("${recipe.cache.missing.max-entries}") int maxEntries) {
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Whether the recipe was recently found missing, in which case the caller skips the repository.
+     */
+    public boolean isMissing(Long recipeId) {
+        synchronized (this) {
+            Long expiry = expiresAt.get(recipeId);
+            if (expiry == null) {
+                return false;
+            }
+            if (expiry - System.nanoTime() <= 0) {
+                expiresAt.remove(recipeId);
+                return false;
+            }
+        }
+
+        lookupsSaved.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * To be taken before looking a recipe up and handed to {@link #add}.
+     */
+    public synchronized long generation() {
+        return generation;
+    }
+
+    public synchronized void add(Long recipeId, long lookedUpAt) {
+        if (maxEntries <= 0 || ttlNanos <= 0 || lookedUpAt != generation) {
+            return;
+        }
+
+        expiresAt.remove(recipeId);
+        expiresAt.put(recipeId, System.nanoTime() + ttlNanos);
+
+        Iterator<Long> eldest = expiresAt.values().iterator();
+        while (expiresAt.size() > maxEntries) {
+            eldest.next();
+            eldest.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    public synchronized void remove(Long recipeId) {
+        generation++;
+        expiresAt.remove(recipeId);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRecipeChanged(RecipeChangedEvent event) {
+        remove(event.getRecipeId());
+    }
+
+    @ManagedOperation
+    public synchronized void clear() {
+        generation++;
+        expiresAt.clear();
+    }
+
+    @ManagedAttribute
+    public long getLookupsSaved() {
+        return lookupsSaved.get();
+    }
+
+    @ManagedAttribute
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    @ManagedAttribute
+    public synchronized int getEntryCount() {
+        return expiresAt.size();
+    }
+}
@@ -0,0 +1,29 @@
+package guru.springframework.services;
+
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts committed recipe changes, so pages listing recipes can tell whether they may have changed since a
+ * client last saw them.
+ */
+@Component
+@ManagedResource(objectName = "guru.springframework:type=RecipeCatalogVersion")
+public class RecipeCatalogVersion {
+
+    private final AtomicLong version = new AtomicLong();
+
+    @ManagedAttribute
+    public long getVersion() {
+        return version.get();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRecipeChanged(RecipeChangedEvent event) {
+        version.incrementAndGet();
+    }
+}
@@ -0,0 +1,15 @@
+package guru.springframework.services;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published when a recipe, its ingredients or its image change, or the recipe is deleted.
+ * Listeners run after the changing transaction commits.
+ */
+@Getter
+@AllArgsConstructor
+public class RecipeChangedEvent {
+
+    private final Long recipeId;
+}
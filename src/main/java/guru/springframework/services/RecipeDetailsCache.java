@@ -0,0 +1,189 @@
+package guru.springframework.services;
+
+import guru.springframework.domain.RecipeDetails;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Least recently used recipe read models, bounded by the number of entries. An entry is dropped once a change to
+ * its recipe commits. A load that was running while any recipe changed is not cached, it may have read the old
+ * state; and an entry is never replaced by one of an older version.
+ * <p>
+ * Only changes made through this application instance are seen as they commit. Entries also expire after a maximum
+ * age, which bounds how long changes made elsewhere (another instance, SQL, bulk imports) go unnoticed, including
+ * by the page ETags built from the cached versions.
+ */
+@Component
+@ManagedResource(objectName = "guru.springframework:type=RecipeDetailsCache")
+public class RecipeDetailsCache {
+
+    private final boolean enabled;
+    private final int maxEntries;
+    private final long maxAgeNanos;
+    private final LongSupplier nanoClock;
+
+    // access ordered, the eldest entry is the least recently used
+    private final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    // incremented on every invalidation
+    private long generation;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+
+    @Autowired
+    public RecipeDetailsCache(@Value("${recipe.cache.enabled}") boolean enabled,
+                              @Value("${recipe.cache.max-entries}") int maxEntries,
+                              @Value("${recipe.cache.max-age-seconds}") long maxAgeSeconds) {
+        this(enabled, maxEntries, maxAgeSeconds, System::nanoTime);
+    }
+
+    RecipeDetailsCache(boolean enabled, int maxEntries, long maxAgeSeconds, LongSupplier nanoClock) {
+        this.enabled = enabled;
+        this.maxEntries = maxEntries;
+        this.maxAgeNanos = TimeUnit.SECONDS.toNanos(maxAgeSeconds);
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Returns the cached read model of the recipe, or null.
+     */
+    public RecipeDetails get(Long recipeId) {
+        if (!enabled) {
+            return null;
+        }
+
+        RecipeDetails details = null;
+        synchronized (this) {
+            Entry entry = entries.get(recipeId);
+            if (entry != null && entry.expiresAt - nanoClock.getAsLong() <= 0) {
+                entries.remove(recipeId);
+                expirations.incrementAndGet();
+            } else if (entry != null) {
+                details = entry.details;
+            }
+        }
+
+        if (details == null) {
+            misses.incrementAndGet();
+        } else {
+            hits.incrementAndGet();
+        }
+        return details;
+    }
+
+    /**
+     * To be taken before loading a recipe and handed to {@link #put}.
+     */
+    public synchronized long generation() {
+        return generation;
+    }
+
+    public synchronized void put(RecipeDetails details, long loadedAt) {
+        if (!enabled || loadedAt != generation) {
+            return;
+        }
+
+        Entry previous = entries.get(details.getId());
+        if (previous != null && previous.details.getVersion() != null && details.getVersion() != null
+                && previous.details.getVersion() > details.getVersion()) {
+            return;
+        }
+        entries.put(details.getId(), new Entry(details, nanoClock.getAsLong() + maxAgeNanos));
+
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (entries.size() > maxEntries) {
+            eldest.next();
+            eldest.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    public synchronized void invalidate(Long recipeId) {
+        generation++;
+        entries.remove(recipeId);
+        invalidations.incrementAndGet();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRecipeChanged(RecipeChangedEvent event) {
+        invalidate(event.getRecipeId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onImageSaved(RecipeImageSavedEvent event) {
+        invalidate(event.getRecipeId());
+    }
+
+    @ManagedOperation
+    public synchronized void clear() {
+        generation++;
+        entries.clear();
+    }
+
+    @ManagedAttribute
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @ManagedAttribute
+    public long getHits() {
+        return hits.get();
+    }
+
+    @ManagedAttribute
+    public long getMisses() {
+        return misses.get();
+    }
+
+    @ManagedAttribute
+    public double getHitRate() {
+        long hits = this.hits.get();
+        long total = hits + misses.get();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    @ManagedAttribute
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    @ManagedAttribute
+    public long getInvalidations() {
+        return invalidations.get();
+    }
+
+    @ManagedAttribute
+    public long getExpirations() {
+        return expirations.get();
+    }
+
+    @ManagedAttribute
+    public synchronized int getEntryCount() {
+        return entries.size();
+    }
+
+    private static class Entry {
+
+        private final RecipeDetails details;
+        private final long expiresAt;
+
+        Entry(RecipeDetails details, long expiresAt) {
+            this.details = details;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package guru.springframework.services;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Set;
+
+/**
+ * Published when a recipe's image is replaced by a different one, with the stored content the previous image and
+ * its renditions pointed at. Listeners run after the upload transaction commits.
+ */
+@Getter
+@AllArgsConstructor
+public class RecipeImageReplacedEvent {
+
+    private final Long recipeId;
+    private final Set<String> contentHashes;
+}
@@ -0,0 +1,15 @@
+package guru.springframework.services;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published when a recipe gets a new image. Listeners run after the upload transaction commits.
+ */
+@Getter
+@AllArgsConstructor
+public class RecipeImageSavedEvent {
+
+    private final Long recipeId;
+    private final String contentHash;
+}
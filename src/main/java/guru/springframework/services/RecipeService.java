@@ -1,15 +1,30 @@
 package guru.springframework.services;
 
 import guru.springframework.commands.RecipeCommand;
-import guru.springframework.domain.Recipe;
+import guru.springframework.domain.RecipeDetails;
+import guru.springframework.domain.RecipeSummary;
 
-import java.util.Set;
+import java.util.List;
 
 public interface RecipeService {
 
-    Set<Recipe> getRecipes();
+    List<RecipeSummary> getRecipeSummaries(Long afterId, int pageSize);
 
-    Recipe findById(Long id);
+    /**
+     * Changes whenever a recipe is added, changed or deleted.
+     */
+    long getCatalogVersion();
+
+    /**
+     * Read model of the show page, fully loaded so it renders without an open session. Served from the
+     * recipe cache when possible.
+     */
+    RecipeDetails findDetailsById(Long id);
+
+    /**
+     * Version of the recipe, which also changes with its ingredients and image. Does not load the recipe.
+     */
+    Long findVersionById(Long id);
 
     RecipeCommand findCommandById(Long id);
 
@@ -3,16 +3,21 @@ package guru.springframework.services;
 import guru.springframework.commands.RecipeCommand;
 import guru.springframework.converters.RecipeCommandToRecipe;
 import guru.springframework.converters.RecipeToRecipeCommand;
+import guru.springframework.converters.RecipeToRecipeDetails;
 import guru.springframework.domain.Recipe;
+import guru.springframework.domain.RecipeDetails;
+import guru.springframework.domain.RecipeSummary;
 import guru.springframework.exceptions.NotFoundException;
 import guru.springframework.repositories.RecipeRepository;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.util.HashSet;
-import java.util.Optional;
-import java.util.Set;
+import java.util.List;
 
 @Slf4j
 @Service
@@ -21,44 +26,79 @@ public class RecipeServiceImpl implements RecipeService {
     private final RecipeRepository recipeRepository;
     private final RecipeCommandToRecipe recipeCommandToRecipe;
     private final RecipeToRecipeCommand recipeToRecipeCommand;
-
-    public RecipeServiceImpl(RecipeRepository recipeRepository, RecipeCommandToRecipe recipeCommandToRecipe, RecipeToRecipeCommand recipeToRecipeCommand) {
+    private final RecipeToRecipeDetails recipeToRecipeDetails;
+    private final RecipeDetailsCache recipeDetailsCache;
+    private final MissingRecipeCache missingRecipeCache;
+    private final RecipeCatalogVersion recipeCatalogVersion;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate readOnlyTransaction;
+    private final SingleFlight<Long, RecipeDetails> detailsLoads;
+
+    public RecipeServiceImpl(RecipeRepository recipeRepository, RecipeCommandToRecipe recipeCommandToRecipe,
+                             RecipeToRecipeCommand recipeToRecipeCommand, RecipeToRecipeDetails recipeToRecipeDetails,
+                             RecipeDetailsCache recipeDetailsCache, MissingRecipeCache missingRecipeCache,
+                             RecipeCatalogVersion recipeCatalogVersion, ApplicationEventPublisher eventPublisher,
+                             PlatformTransactionManager transactionManager, CoalescedLoads coalescedLoads) {
         this.recipeRepository = recipeRepository;
         this.recipeCommandToRecipe = recipeCommandToRecipe;
         this.recipeToRecipeCommand = recipeToRecipeCommand;
+        this.recipeToRecipeDetails = recipeToRecipeDetails;
+        this.recipeDetailsCache = recipeDetailsCache;
+        this.missingRecipeCache = missingRecipeCache;
+        this.recipeCatalogVersion = recipeCatalogVersion;
+        this.eventPublisher = eventPublisher;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.detailsLoads = coalescedLoads.recipeDetails();
     }
 
     @Override
-    public Set<Recipe> getRecipes() {
-        log.debug("Running recipe service.");
+    public List<RecipeSummary> getRecipeSummaries(Long afterId, int pageSize) {
+        log.debug("Getting recipe page after id: {} (page size: {})", afterId, pageSize);
 
-        Set<Recipe> recipeSet = new HashSet<>();
+        // ids start from 1, so 0 means "from the beginning"
+        Long cursor = afterId == null ? 0L : afterId;
 
-        recipeRepository
-                .findAll()
-                .iterator()
-                .forEachRemaining(recipeSet::add);
+        return recipeRepository.findSummariesByIdGreaterThan(cursor, PageRequest.of(0, pageSize));
+    }
 
-        return recipeSet;
+    @Override
+    public long getCatalogVersion() {
+        return recipeCatalogVersion.getVersion();
     }
 
     @Override
-    public Recipe findById(Long id) {
-        Optional<Recipe> recipeOptional = recipeRepository.findById(id);
+    public RecipeDetails findDetailsById(Long id) {
+        RecipeDetails details = recipeDetailsCache.get(id);
+        if (details != null) {
+            return details;
+        }
+        checkNotMissing(id);
 
-        if (!recipeOptional.isPresent()) {
-            String message = String.format("Recipe not found (recipe id: %d)", id);
-            throw new NotFoundException(message);
+        // concurrent misses for the same recipe share one load
+        return detailsLoads.load(id, () -> loadDetails(id));
+    }
+
+    @Override
+    public Long findVersionById(Long id) {
+        RecipeDetails details = recipeDetailsCache.get(id);
+        if (details != null) {
+            return details.getVersion();
         }
+        checkNotMissing(id);
 
-        return recipeOptional
-                .orElseThrow(() -> new RuntimeException("Recipe not found"));
+        long missingAt = missingRecipeCache.generation();
+        return recipeRepository.findVersionById(id).orElseThrow(() -> recipeMissing(id, missingAt));
     }
 
     @Override
     @Transactional
     public RecipeCommand findCommandById(Long id) {
-        return recipeToRecipeCommand.convert(findById(id));
+        checkNotMissing(id);
+
+        long missingAt = missingRecipeCache.generation();
+        return recipeToRecipeCommand.convert(
+                recipeRepository.findDetailedById(id).orElseThrow(() -> recipeMissing(id, missingAt)));
     }
 
     @Override
@@ -68,11 +108,41 @@ public class RecipeServiceImpl implements RecipeService {
 
         Recipe savedRecipe = recipeRepository.save(detachedRecipe);
         log.debug("Saved RecipeId:" + savedRecipe.getId());
+        eventPublisher.publishEvent(new RecipeChangedEvent(savedRecipe.getId()));
         return recipeToRecipeCommand.convert(savedRecipe);
     }
 
     @Override
     public void deleteById(Long id) {
         recipeRepository.deleteById(id);
+        eventPublisher.publishEvent(new RecipeChangedEvent(id));
+    }
+
+    private RecipeDetails loadDetails(Long id) {
+        // a hit needs no transaction, so one is only started for loading
+        long generation = recipeDetailsCache.generation();
+        long missingAt = missingRecipeCache.generation();
+        RecipeDetails details = readOnlyTransaction.execute(status -> recipeToRecipeDetails.convert(
+                recipeRepository.findDetailedById(id).orElseThrow(() -> recipeMissing(id, missingAt))));
+        recipeDetailsCache.put(details, generation);
+        return details;
+    }
+
+    private void checkNotMissing(Long id) {
+        if (missingRecipeCache.isMissing(id)) {
+            throw recipeNotFound(id);
+        }
+    }
+
+    /**
+     * Remembers the recipe as missing, unless it may have been saved since the lookup started.
+     */
+    private NotFoundException recipeMissing(Long id, long missingAt) {
+        missingRecipeCache.add(id, missingAt);
+        return recipeNotFound(id);
+    }
+
+    private NotFoundException recipeNotFound(Long id) {
+        return new NotFoundException(String.format("Recipe not found (recipe id: %d)", id));
     }
 }
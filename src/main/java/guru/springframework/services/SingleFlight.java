@@ -0,0 +1,65 @@
+package guru.springframework.services;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs at most one load per key at a time. Callers asking for a key that is already being loaded wait for that
+ * load and share its result, or its exception, instead of starting their own. Nothing is kept once a load is done,
+ * caching is left to the caller.
+ */
+class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    <E extends Exception> V load(K key, Loader<V, E> loader) throws E {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, flight);
+        if (running != null) {
+            coalesced.incrementAndGet();
+            return join(running);
+        }
+
+        try {
+            V value = loader.load();
+            flight.complete(value);
+            return value;
+        } catch (Exception | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    /**
+     * How many callers were served by another caller's load.
+     */
+    long getCoalesced() {
+        return coalesced.get();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <E extends Exception> V join(CompletableFuture<V> flight) throws E {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            // the load failed with a runtime exception, an error or an E of the same loader type
+            Throwable cause = e.getCause();
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw (E) cause;
+        }
+    }
+
+    @FunctionalInterface
+    interface Loader<V, E extends Exception> {
+
+        V load() throws E;
+    }
+}
@@ -0,0 +1,59 @@
+package guru.springframework.services;
+
+import guru.springframework.exceptions.ImageTooLargeException;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Fails the read as soon as more than {@code maxSize} bytes have gone through,
+ * so an oversized upload is rejected while it is being streamed.
+ */
+class SizeLimitedInputStream extends FilterInputStream {
+
+    private final long maxSize;
+    private long count;
+
+    SizeLimitedInputStream(InputStream in, long maxSize) {
+        super(in);
+        this.maxSize = maxSize;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b != -1) {
+            count(1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = super.read(b, off, len);
+        if (n > 0) {
+            count(n);
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = super.skip(n);
+        count(skipped);
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    private void count(long n) {
+        count += n;
+        if (count > maxSize) {
+            throw new ImageTooLargeException(String.format("Image is larger than %d bytes", maxSize));
+        }
+    }
+}
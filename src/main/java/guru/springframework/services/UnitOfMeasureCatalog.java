@@ -0,0 +1,103 @@
+package guru.springframework.services;
+
+import guru.springframework.commands.UnitOfMeasureCommand;
+import guru.springframework.converters.UnitOfMeasureToUnitOfMeasureCommand;
+import guru.springframework.domain.UnitOfMeasure;
+import guru.springframework.repositories.UnitOfMeasureRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * All units of measure, loaded once at startup and kept in memory, so ingredient forms and saves do no database work
+ * for them. The catalog is swapped as a whole on refresh, readers always see a complete, unmodifiable snapshot.
+ * Units are not changed by the application; units added to the database are picked up by the refresh operation
+ * over JMX. A lookup of an unknown unit is answered from the snapshot, so bogus ids never reach the database.
+ */
+@Slf4j
+@Component
+@ManagedResource(objectName = "guru.springframework:type=UnitOfMeasureCatalog")
+public class UnitOfMeasureCatalog {
+
+    private final UnitOfMeasureRepository unitOfMeasureRepository;
+    private final UnitOfMeasureToUnitOfMeasureCommand unitOfMeasureToUnitOfMeasureCommand;
+
+    private volatile Snapshot snapshot;
+
+    public UnitOfMeasureCatalog(UnitOfMeasureRepository unitOfMeasureRepository,
+                                UnitOfMeasureToUnitOfMeasureCommand unitOfMeasureToUnitOfMeasureCommand) {
+        this.unitOfMeasureRepository = unitOfMeasureRepository;
+        this.unitOfMeasureToUnitOfMeasureCommand = unitOfMeasureToUnitOfMeasureCommand;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @ManagedOperation
+    public void refresh() {
+        List<UnitOfMeasure> uoms = new ArrayList<>();
+        unitOfMeasureRepository.findAll().forEach(uoms::add);
+        uoms.sort(Comparator.comparing(UnitOfMeasure::getDescription, Comparator.nullsLast(Comparator.naturalOrder())));
+
+        snapshot = new Snapshot(uoms, unitOfMeasureToUnitOfMeasureCommand);
+        log.debug("Loaded {} units of measure.", uoms.size());
+    }
+
+    /**
+     * All units ordered by description, shared between requests and not to be modified.
+     */
+    public List<UnitOfMeasureCommand> getCommands() {
+        return snapshot().commands;
+    }
+
+    /**
+     * The unit with the given id, detached, for referencing from an ingredient.
+     */
+    public Optional<UnitOfMeasure> findById(Long id) {
+        return Optional.ofNullable(snapshot().byId.get(id));
+    }
+
+    public Optional<UnitOfMeasure> findByDescription(String description) {
+        return Optional.ofNullable(snapshot().byDescription.get(description));
+    }
+
+    @ManagedAttribute
+    public int getSize() {
+        return snapshot().commands.size();
+    }
+
+    private Snapshot snapshot() {
+        if (snapshot == null) {
+            refresh();
+        }
+        return snapshot;
+    }
+
+    private static class Snapshot {
+
+        private final List<UnitOfMeasureCommand> commands;
+        private final Map<Long, UnitOfMeasure> byId = new HashMap<>();
+        private final Map<String, UnitOfMeasure> byDescription = new HashMap<>();
+
+        private Snapshot(List<UnitOfMeasure> uoms, UnitOfMeasureToUnitOfMeasureCommand converter) {
+            commands = Collections.unmodifiableList(uoms.stream()
+                    .map(converter::convert)
+                    .collect(Collectors.toList()));
+            uoms.forEach(uom -> {
+                byId.put(uom.getId(), uom);
+                byDescription.put(uom.getDescription(), uom);
+            });
+        }
+    }
+}
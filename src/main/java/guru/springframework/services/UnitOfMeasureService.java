@@ -2,12 +2,15 @@ package guru.springframework.services;
 
 import guru.springframework.commands.UnitOfMeasureCommand;
 
-import java.util.Set;
+import java.util.List;
 
 /**
  * Created by jt on 6/28/17.
  */
 public interface UnitOfMeasureService {
 
-    Set<UnitOfMeasureCommand> listAllUoms();
+    /**
+     * All units of measure ordered by description, served from memory.
+     */
+    List<UnitOfMeasureCommand> listAllUoms();
 }
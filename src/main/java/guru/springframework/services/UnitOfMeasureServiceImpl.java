@@ -1,13 +1,9 @@
 package guru.springframework.services;
 
 import guru.springframework.commands.UnitOfMeasureCommand;
-import guru.springframework.converters.UnitOfMeasureToUnitOfMeasureCommand;
-import guru.springframework.repositories.UnitOfMeasureRepository;
 import org.springframework.stereotype.Service;
 
-import java.util.Set;
-import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
+import java.util.List;
 
 /**
  * Created by jt on 6/28/17.
@@ -15,20 +11,14 @@ import java.util.stream.StreamSupport;
 @Service
 public class UnitOfMeasureServiceImpl implements UnitOfMeasureService {
 
-    private final UnitOfMeasureRepository unitOfMeasureRepository;
-    private final UnitOfMeasureToUnitOfMeasureCommand unitOfMeasureToUnitOfMeasureCommand;
+    private final UnitOfMeasureCatalog unitOfMeasureCatalog;
 
-    public UnitOfMeasureServiceImpl(UnitOfMeasureRepository unitOfMeasureRepository, UnitOfMeasureToUnitOfMeasureCommand unitOfMeasureToUnitOfMeasureCommand) {
-        this.unitOfMeasureRepository = unitOfMeasureRepository;
-        this.unitOfMeasureToUnitOfMeasureCommand = unitOfMeasureToUnitOfMeasureCommand;
+    public UnitOfMeasureServiceImpl(UnitOfMeasureCatalog unitOfMeasureCatalog) {
+        this.unitOfMeasureCatalog = unitOfMeasureCatalog;
     }
 
     @Override
-    public Set<UnitOfMeasureCommand> listAllUoms() {
-
-        return StreamSupport.stream(unitOfMeasureRepository.findAll()
-                .spliterator(), false)
-                .map(unitOfMeasureToUnitOfMeasureCommand::convert)
-                .collect(Collectors.toSet());
+    public List<UnitOfMeasureCommand> listAllUoms() {
+        return unitOfMeasureCatalog.getCommands();
     }
 }
@@ -1,11 +1,11 @@
-INSERT INTO category (description) VALUES ('American');
-INSERT INTO category (description) VALUES ('Italian');
-INSERT INTO category (description) VALUES ('Mexican');
-INSERT INTO category (description) VALUES ('Fast Food');
-INSERT INTO unit_of_measure (description) VALUES ('Each');
-INSERT INTO unit_of_measure (description) VALUES ('Teaspoon');
-INSERT INTO unit_of_measure (description) VALUES ('Tablespoon');
-INSERT INTO unit_of_measure (description) VALUES ('Cup');
-INSERT INTO unit_of_measure (description) VALUES ('Pinch');
-INSERT INTO unit_of_measure (description) VALUES ('Ounce');
-INSERT INTO unit_of_measure (description) VALUES ('Pint');
\ No newline at end of file
+INSERT INTO category (id, description) VALUES (NEXT VALUE FOR category_seq, 'American');
+INSERT INTO category (id, description) VALUES (NEXT VALUE FOR category_seq, 'Italian');
+INSERT INTO category (id, description) VALUES (NEXT VALUE FOR category_seq, 'Mexican');
+INSERT INTO category (id, description) VALUES (NEXT VALUE FOR category_seq, 'Fast Food');
+INSERT INTO unit_of_measure (id, description) VALUES (NEXT VALUE FOR unit_of_measure_seq, 'Each');
+INSERT INTO unit_of_measure (id, description) VALUES (NEXT VALUE FOR unit_of_measure_seq, 'Teaspoon');
+INSERT INTO unit_of_measure (id, description) VALUES (NEXT VALUE FOR unit_of_measure_seq, 'Tablespoon');
+INSERT INTO unit_of_measure (id, description) VALUES (NEXT VALUE FOR unit_of_measure_seq, 'Cup');
+INSERT INTO unit_of_measure (id, description) VALUES (NEXT VALUE FOR unit_of_measure_seq, 'Pinch');
+INSERT INTO unit_of_measure (id, description) VALUES (NEXT VALUE FOR unit_of_measure_seq, 'Ounce');
+INSERT INTO unit_of_measure (id, description) VALUES (NEXT VALUE FOR unit_of_measure_seq, 'Pint');
\ No newline at end of file
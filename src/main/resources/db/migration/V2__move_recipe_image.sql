@@ -0,0 +1,15 @@
+-- Moves recipe images out of the recipe row into their own table.
+-- The bundled in-memory H2 database is recreated by Hibernate on every start,
+-- this script is for databases created before the recipe_image table existed.
+
+CREATE TABLE recipe_image (
+    recipe_id BIGINT NOT NULL,
+    image BLOB,
+    PRIMARY KEY (recipe_id),
+    CONSTRAINT fk_recipe_image_recipe FOREIGN KEY (recipe_id) REFERENCES recipe (id) ON DELETE CASCADE
+);
+
+INSERT INTO recipe_image (recipe_id, image)
+SELECT id, image FROM recipe WHERE image IS NOT NULL;
+
+ALTER TABLE recipe DROP COLUMN image;
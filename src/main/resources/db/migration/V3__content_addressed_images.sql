@@ -0,0 +1,25 @@
+-- Moves image content from recipe_image into the content addressed stored_image table.
+-- Uses H2 functions to compute the SHA-256 key. Identical images end up as one stored_image row.
+-- To move the content on to the filesystem store afterwards, start the application with
+-- --recipe.image.store=filesystem --migrate-images
+
+CREATE TABLE stored_image (
+    hash VARCHAR(255) NOT NULL,
+    content BLOB,
+    PRIMARY KEY (hash)
+);
+
+ALTER TABLE recipe_image ADD COLUMN content_hash VARCHAR(255);
+ALTER TABLE recipe_image ADD COLUMN content_type VARCHAR(255);
+ALTER TABLE recipe_image ADD COLUMN content_length BIGINT;
+
+UPDATE recipe_image
+SET content_hash = LOWER(RAWTOHEX(HASH('SHA256', image, 1))),
+    content_type = 'image/jpeg',
+    content_length = LENGTH(image)
+WHERE image IS NOT NULL;
+
+MERGE INTO stored_image (hash, content) KEY (hash)
+SELECT content_hash, image FROM recipe_image WHERE image IS NOT NULL;
+
+ALTER TABLE recipe_image DROP COLUMN image;
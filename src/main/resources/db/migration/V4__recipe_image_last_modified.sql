@@ -0,0 +1,5 @@
+-- Last-Modified for image responses. Existing images count as modified now.
+
+ALTER TABLE recipe_image ADD COLUMN last_modified TIMESTAMP;
+
+UPDATE recipe_image SET last_modified = CURRENT_TIMESTAMP;
@@ -0,0 +1,12 @@
+-- Resized copies of recipe images. Existing images get their renditions on the next upload,
+-- until then the original is served for every size.
+
+CREATE TABLE recipe_image_rendition (
+    recipe_image_id BIGINT NOT NULL,
+    rendition_size INTEGER NOT NULL,
+    content_hash VARCHAR(255),
+    content_type VARCHAR(255),
+    content_length BIGINT,
+    PRIMARY KEY (recipe_image_id, rendition_size),
+    CONSTRAINT fk_recipe_image_rendition_image FOREIGN KEY (recipe_image_id) REFERENCES recipe_image (recipe_id) ON DELETE CASCADE
+);
@@ -0,0 +1,25 @@
+-- Ids come from sequences instead of identity columns, so Hibernate can batch inserts.
+-- Hibernate's pooled optimizer reserves the 50 ids up to each value it reads, so every
+-- sequence starts at least 50 past the highest existing id.
+
+CREATE SEQUENCE recipe_seq START WITH 1 INCREMENT BY 50;
+ALTER SEQUENCE recipe_seq RESTART WITH (SELECT COALESCE(MAX(id), 0) + 50 FROM recipe);
+
+CREATE SEQUENCE ingredient_seq START WITH 1 INCREMENT BY 50;
+ALTER SEQUENCE ingredient_seq RESTART WITH (SELECT COALESCE(MAX(id), 0) + 50 FROM ingredient);
+
+CREATE SEQUENCE notes_seq START WITH 1 INCREMENT BY 50;
+ALTER SEQUENCE notes_seq RESTART WITH (SELECT COALESCE(MAX(id), 0) + 50 FROM notes);
+
+CREATE SEQUENCE category_seq START WITH 1 INCREMENT BY 50;
+ALTER SEQUENCE category_seq RESTART WITH (SELECT COALESCE(MAX(id), 0) + 50 FROM category);
+
+CREATE SEQUENCE unit_of_measure_seq START WITH 1 INCREMENT BY 50;
+ALTER SEQUENCE unit_of_measure_seq RESTART WITH (SELECT COALESCE(MAX(id), 0) + 50 FROM unit_of_measure);
+
+-- the ids are assigned by the application now
+ALTER TABLE recipe ALTER COLUMN id BIGINT NOT NULL;
+ALTER TABLE ingredient ALTER COLUMN id BIGINT NOT NULL;
+ALTER TABLE notes ALTER COLUMN id BIGINT NOT NULL;
+ALTER TABLE category ALTER COLUMN id BIGINT NOT NULL;
+ALTER TABLE unit_of_measure ALTER COLUMN id BIGINT NOT NULL;
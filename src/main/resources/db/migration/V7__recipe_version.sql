@@ -0,0 +1,8 @@
+-- Optimistic locking and cache validation for recipes. The version is incremented by
+-- Hibernate on every change to a recipe, its ingredients or its image.
+
+ALTER TABLE recipe ADD COLUMN version BIGINT;
+
+UPDATE recipe SET version = 0;
+
+ALTER TABLE recipe ALTER COLUMN version SET NOT NULL;
@@ -0,0 +1,6 @@
+-- Last-Modified for rendition responses, which change when a rendition replaces the original
+-- served in its place. Existing renditions count as modified now.
+
+ALTER TABLE recipe_image_rendition ADD COLUMN last_modified TIMESTAMP;
+
+UPDATE recipe_image_rendition SET last_modified = CURRENT_TIMESTAMP;
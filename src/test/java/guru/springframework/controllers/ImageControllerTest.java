@@ -1,7 +1,8 @@
 package guru.springframework.controllers;
 
-import guru.springframework.commands.RecipeCommand;
-import guru.springframework.domain.Recipe;
+import guru.springframework.domain.ImageContent;
+import guru.springframework.domain.RecipeDetails;
+import guru.springframework.exceptions.UnsupportedImageTypeException;
 import guru.springframework.services.ImageService;
 import guru.springframework.services.RecipeService;
 import org.junit.Before;
@@ -10,15 +11,26 @@ import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.http.HttpHeaders;
 import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.time.Instant;
+import java.util.Collections;
+
 import static org.junit.Assert.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
@@ -30,6 +42,9 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 @RunWith(MockitoJUnitRunner.class)
 public class ImageControllerTest {
 
+    static final String FAKE_IMAGE = "fake image text";
+    static final String IMAGE_HASH = "abc123";
+
     private MockMvc mockMvc;
 
     @Mock
@@ -49,16 +64,16 @@ public class ImageControllerTest {
 
     @Test
     public void testShowUploadForm() throws Exception {
-        RecipeCommand recipeCommand = new RecipeCommand();
-        recipeCommand.setId(1L);
+        RecipeDetails recipe = new RecipeDetails(1L, 0L, "description", 10, 20, 4, "source", "url", "directions",
+                null, "notes", Collections.emptyList(), Collections.emptyList());
 
-        when(recipeService.findCommandById(1L)).thenReturn(recipeCommand);
+        when(recipeService.findDetailsById(1L)).thenReturn(recipe);
 
         mockMvc.perform(get("/recipe/1/image"))
                 .andExpect(status().isOk())
                 .andExpect(view().name("recipe/imageuploadform"));
 
-        verify(recipeService).findCommandById(anyLong());
+        verify(recipeService).findDetailsById(anyLong());
     }
 
     @Test
@@ -78,28 +93,145 @@ public class ImageControllerTest {
 
     @Test
     public void testRenderImageFromDb() throws Exception {
-        RecipeCommand recipeCommand = new RecipeCommand();
-        recipeCommand.setId(1L);
+        givenImage(FAKE_IMAGE);
 
-        String fakeImage = "fake image text";
-        Byte[] fakeImageInByteArr = new Byte[fakeImage.getBytes().length];
+        MockHttpServletResponse response = mockMvc.perform(get("/recipe/1/recipeimage"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + IMAGE_HASH + "\""))
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"))
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                .andExpect(header().string("X-Content-Type-Options", "nosniff"))
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "image/jpeg"))
+                .andReturn().getResponse();
 
-        for (int i = 0; i < fakeImage.getBytes().length; i++) {
-            fakeImageInByteArr[i] = fakeImage.getBytes()[i];
-        }
+        byte[] responseBytes = response.getContentAsByteArray();
 
-        recipeCommand.setImage(fakeImageInByteArr);
+        // asserting lengths is enough
+        assertEquals(FAKE_IMAGE.getBytes().length, responseBytes.length);
+        verify(recipeService, never()).findDetailsById(anyLong());
+    }
 
-        when(recipeService.findCommandById(anyLong())).thenReturn(recipeCommand);
+    @Test
+    public void testRenderVersionedImageIsCachedLong() throws Exception {
+        givenImage(FAKE_IMAGE);
 
-        MockHttpServletResponse response = mockMvc.perform(get("/recipe/1/recipeimage"))
+        mockMvc.perform(get("/recipe/1/recipeimage").param("v", IMAGE_HASH))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=31536000, public"));
+    }
+
+    @Test
+    public void testRenderImageRendition() throws Exception {
+        givenImage(FAKE_IMAGE, false);
+
+        mockMvc.perform(get("/recipe/1/recipeimage").param("size", "200").param("v", IMAGE_HASH))
                 .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=31536000, public"));
+
+        verify(imageService).loadImage(1L, 200);
+    }
+
+    @Test
+    public void testRenderProvisionalRenditionIsNotCachedLong() throws Exception {
+        givenImage(FAKE_IMAGE, true);
+
+        mockMvc.perform(get("/recipe/1/recipeimage").param("size", "200").param("v", IMAGE_HASH))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"));
+    }
+
+    @Test
+    public void testRenderImageNotModified() throws Exception {
+        givenImage(FAKE_IMAGE);
+
+        MockHttpServletResponse response = mockMvc.perform(get("/recipe/1/recipeimage")
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"" + IMAGE_HASH + "\""))
+                .andExpect(status().isNotModified())
                 .andReturn().getResponse();
 
-        byte[] responseBytes = response.getContentAsByteArray();
+        assertEquals(0, response.getContentAsByteArray().length);
+        verify(imageService, never()).writeImage(any(), anyLong(), anyLong(), any());
+    }
 
-        // asserting lengths is enough
-        assertEquals(fakeImage.getBytes().length, responseBytes.length);
+    @Test
+    public void testRenderImageRange() throws Exception {
+        givenImage(FAKE_IMAGE);
+
+        MockHttpServletResponse response = mockMvc.perform(get("/recipe/1/recipeimage")
+                        .header(HttpHeaders.RANGE, "bytes=5-9"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 5-9/" + FAKE_IMAGE.length()))
+                .andReturn().getResponse();
+
+        assertEquals("image", response.getContentAsString());
+    }
+
+    @Test
+    public void testRenderImageRangeNotSatisfiable() throws Exception {
+        givenImage(FAKE_IMAGE);
+
+        mockMvc.perform(get("/recipe/1/recipeimage")
+                        .header(HttpHeaders.RANGE, "bytes=100-"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */" + FAKE_IMAGE.length()));
+    }
+
+    @Test
+    public void testRenderImageIgnoresRangeForChangedImage() throws Exception {
+        givenImage(FAKE_IMAGE);
+
+        mockMvc.perform(get("/recipe/1/recipeimage")
+                        .header(HttpHeaders.RANGE, "bytes=5-9")
+                        .header(HttpHeaders.IF_RANGE, "\"old\""))
+                .andExpect(status().isOk());
+    }
+
+    private void givenImage(String content) throws Exception {
+        givenImage(content, false);
+    }
+
+    private void givenImage(String content, boolean provisional) throws Exception {
+        givenImage(content, "image/jpeg", provisional);
+    }
+
+    private void givenImage(String content, String contentType, boolean provisional) throws Exception {
+        ImageContent imageContent = new ImageContent(1L, IMAGE_HASH, IMAGE_HASH, contentType,
+                (long) content.getBytes().length, Instant.parse("2019-01-01T00:00:00Z"), provisional);
+
+        lenient().when(imageService.loadImage(anyLong(), isNull())).thenReturn(imageContent);
+        lenient().when(imageService.loadImage(anyLong(), any(Integer.class))).thenReturn(imageContent);
+        lenient().doAnswer(invocation -> {
+            long position = invocation.getArgument(1);
+            long count = invocation.getArgument(2);
+            WritableByteChannel channel = invocation.getArgument(3);
+            channel.write(ByteBuffer.wrap(content.getBytes(), (int) position, (int) count));
+            return null;
+        }).when(imageService).writeImage(eq(imageContent), anyLong(), anyLong(), any());
+    }
+
+    @Test
+    public void testRenderImageWithoutImageType() throws Exception {
+        givenImage("<script>alert(1)</script>", "text/html", false);
+
+        mockMvc.perform(get("/recipe/1/recipeimage"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "application/octet-stream"))
+                .andExpect(header().string("X-Content-Type-Options", "nosniff"));
+    }
+
+    @Test
+    public void testHandleImagePostUnsupportedType() throws Exception {
+        MockMultipartFile multipartFile = new MockMultipartFile(
+                "imagefile",
+                "image.html",
+                "text/html",
+                "<script>alert(1)</script>".getBytes());
+        doThrow(new UnsupportedImageTypeException("not an image")).when(imageService).saveImageFile(anyLong(), any());
+
+        mockMvc.perform(multipart("/recipe/1/image").file(multipartFile))
+                .andExpect(status().isBadRequest())
+                .andExpect(view().name("400error"));
     }
 
     @Test
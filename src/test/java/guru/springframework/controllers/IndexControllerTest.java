@@ -1,23 +1,31 @@
 package guru.springframework.controllers;
 
-import guru.springframework.domain.Recipe;
+import guru.springframework.domain.RecipeSummary;
 import guru.springframework.services.RecipeService;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.ui.Model;
+import org.springframework.web.context.request.ServletWebRequest;
 
-import java.util.HashSet;
-import java.util.Set;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import static org.junit.Assert.*;
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.model;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.view;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
@@ -47,29 +55,64 @@ public class IndexControllerTest {
                 .andExpect(view().name("index"));
     }
 
+    @Test
+    public void testNotModified() throws Exception {
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(indexController).build();
+        when(recipeService.getCatalogVersion()).thenReturn(4L);
+
+        String etag = mockMvc.perform(get("/"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        // a recipe was added, changed or deleted
+        when(recipeService.getCatalogVersion()).thenReturn(5L);
+        mockMvc.perform(get("/").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+
+        verify(recipeService, times(2)).getRecipeSummaries(isNull(), anyInt());
+    }
+
     @Test
     public void getIndexPage() {
         // given
-        Recipe recipe = new Recipe();
-        recipe.setId(2L);
-        Recipe recipe2 = new Recipe();
-        recipe.setId(22L);
+        List<RecipeSummary> recipes = new ArrayList<>();
+        recipes.add(new RecipeSummary(2L, "Tacos"));
+        recipes.add(new RecipeSummary(22L, "Guacamole"));
 
-        Set<Recipe> recipes = new HashSet<>();
-        recipes.add(recipe);
-        recipes.add(recipe2);
-
-        when(recipeService.getRecipes()).thenReturn(recipes);
-        ArgumentCaptor<Set<Recipe>> argumentCaptor = ArgumentCaptor.forClass(Set.class);
+        when(recipeService.getRecipeSummaries(isNull(), anyInt())).thenReturn(recipes);
+        ArgumentCaptor<List<RecipeSummary>> argumentCaptor = ArgumentCaptor.forClass(List.class);
 
         // when
-        String viewName = indexController.getIndexPage(model);
+        String viewName = indexController.getIndexPage(null, null,
+                new ServletWebRequest(new MockHttpServletRequest(), new MockHttpServletResponse()), model);
 
         // then
         assertEquals("index", viewName);
         verify(model).addAttribute(eq("recipes"), argumentCaptor.capture());
-        verify(recipeService).getRecipes();
-        Set<Recipe> setInController = argumentCaptor.getValue();
-        assertEquals(2, setInController.size());
+        verify(recipeService).getRecipeSummaries(null, IndexController.DEFAULT_PAGE_SIZE + 1);
+        verify(model, never()).addAttribute(eq("next"), any());
+        List<RecipeSummary> listInController = argumentCaptor.getValue();
+        assertEquals(2, listInController.size());
+    }
+
+    @Test
+    public void getIndexPageWithNextCursor() throws Exception {
+        // given
+        when(recipeService.getRecipeSummaries(3L, 3)).thenReturn(Arrays.asList(
+                new RecipeSummary(5L, "Tacos"),
+                new RecipeSummary(7L, "Guacamole"),
+                new RecipeSummary(9L, "Pizza")));
+
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(indexController).build();
+
+        // when / then
+        mockMvc.perform(get("/").param("after", "3").param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(view().name("index"))
+                .andExpect(model().attribute("next", 7L))
+                .andExpect(model().attribute("size", 2));
     }
-}
\ No newline at end of file
+}
@@ -1,19 +1,27 @@
 package guru.springframework.controllers;
 
 import guru.springframework.commands.IngredientCommand;
-import guru.springframework.commands.RecipeCommand;
+import guru.springframework.commands.RecipeIngredientsCommand;
+import guru.springframework.domain.RecipeDetails;
+import guru.springframework.exceptions.NotFoundException;
 import guru.springframework.services.IngredientService;
 import guru.springframework.services.RecipeService;
 import guru.springframework.services.UnitOfMeasureService;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
-import java.util.HashSet;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
 
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.*;
@@ -47,17 +55,31 @@ public class IngredientControllerTest {
     @Test
     public void testListIngredients() throws Exception {
         //given
-        RecipeCommand recipeCommand = new RecipeCommand();
-        when(recipeService.findCommandById(anyLong())).thenReturn(recipeCommand);
+        when(ingredientService.findDetailsByRecipeId(anyLong())).thenReturn(Collections.emptyList());
 
         //when
         mockMvc.perform(get("/recipe/1/ingredients"))
                 .andExpect(status().isOk())
                 .andExpect(view().name("recipe/ingredient/list"))
-                .andExpect(model().attributeExists("recipe"));
+                .andExpect(model().attribute("recipeId", 1L))
+                .andExpect(model().attributeExists("ingredients"));
 
         //then
-        verify(recipeService, times(1)).findCommandById(anyLong());
+        verify(ingredientService, times(1)).findDetailsByRecipeId(anyLong());
+    }
+
+    @Test
+    public void testListIngredientsNotModified() throws Exception {
+        when(recipeService.findVersionById(1L)).thenReturn(2L);
+
+        String etag = mockMvc.perform(get("/recipe/1/ingredients"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/recipe/1/ingredients").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        verify(ingredientService, times(1)).findDetailsByRecipeId(anyLong());
     }
 
     @Test
@@ -75,15 +97,23 @@ public class IngredientControllerTest {
                 .andExpect(model().attributeExists("ingredient"));
     }
 
+    @Test
+    public void testShowIngredientNotFound() throws Exception {
+        when(ingredientService.findByRecipeIdAndIngredientId(anyLong(), anyLong())).thenThrow(NotFoundException.class);
+
+        mockMvc.perform(get("/recipe/1/ingredient/2/show"))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     public void testNewIngredientForm() throws Exception {
         //given
-        RecipeCommand recipeCommand = new RecipeCommand();
-        recipeCommand.setId(1L);
+        RecipeDetails recipe = new RecipeDetails(1L, 0L, "description", 10, 20, 4, "source", "url", "directions",
+                null, "notes", Collections.emptyList(), Collections.emptyList());
 
         //when
-        when(recipeService.findCommandById(anyLong())).thenReturn(recipeCommand);
-        when(unitOfMeasureService.listAllUoms()).thenReturn(new HashSet<>());
+        when(recipeService.findDetailsById(anyLong())).thenReturn(recipe);
+        when(unitOfMeasureService.listAllUoms()).thenReturn(Collections.emptyList());
 
         //then
         mockMvc.perform(get("/recipe/1/ingredient/new"))
@@ -92,7 +122,7 @@ public class IngredientControllerTest {
                 .andExpect(model().attributeExists("ingredient"))
                 .andExpect(model().attributeExists("uomList"));
 
-        verify(recipeService, times(1)).findCommandById(anyLong());
+        verify(recipeService, times(1)).findDetailsById(anyLong());
 
     }
 
@@ -103,7 +133,7 @@ public class IngredientControllerTest {
 
         //when
         when(ingredientService.findByRecipeIdAndIngredientId(anyLong(), anyLong())).thenReturn(ingredientCommand);
-        when(unitOfMeasureService.listAllUoms()).thenReturn(new HashSet<>());
+        when(unitOfMeasureService.listAllUoms()).thenReturn(Collections.emptyList());
 
         //then
         mockMvc.perform(get("/recipe/1/ingredient/2/update"))
@@ -133,6 +163,73 @@ public class IngredientControllerTest {
                 .andExpect(view().name("redirect:/recipe/2/ingredient/3/show"));
     }
 
+    @Test
+    public void testEditIngredientsForm() throws Exception {
+        IngredientCommand ingredientCommand = new IngredientCommand();
+        ingredientCommand.setId(3L);
+
+        when(ingredientService.findByRecipeId(anyLong())).thenReturn(Collections.singletonList(ingredientCommand));
+        when(unitOfMeasureService.listAllUoms()).thenReturn(Collections.emptyList());
+
+        MvcResult result = mockMvc.perform(get("/recipe/2/ingredients/edit"))
+                .andExpect(status().isOk())
+                .andExpect(view().name("recipe/ingredient/bulkform"))
+                .andExpect(model().attributeExists("uomList"))
+                .andReturn();
+
+        RecipeIngredientsCommand command = (RecipeIngredientsCommand) result.getModelAndView().getModel().get("ingredients");
+        assertEquals(Long.valueOf(2L), command.getRecipeId());
+        // the existing ingredient and a blank row for a new one
+        assertEquals(2, command.getIngredients().size());
+    }
+
+    @Test
+    public void testSaveIngredients() throws Exception {
+        mockMvc.perform(post("/recipe/2/ingredients")
+                .contentType(MediaType.APPLICATION_FORM_URLENCODED)
+                .param("ingredients[0].id", "3")
+                .param("ingredients[0].description", "salt")
+                .param("ingredients[1].id", "4")
+                .param("ingredients[1].description", "pepper")
+                .param("ingredients[2].id", "")
+                .param("ingredients[2].description", "")
+                .param("deletedIds", "4")
+        )
+                .andExpect(status().is3xxRedirection())
+                .andExpect(view().name("redirect:/recipe/2/ingredients"));
+
+        ArgumentCaptor<List<IngredientCommand>> ingredients = ArgumentCaptor.forClass(List.class);
+        verify(ingredientService).saveIngredientCommands(eq(2L), ingredients.capture(), eq(Collections.singleton(4L)));
+        assertEquals(2, ingredients.getValue().size());
+    }
+
+    @Test
+    public void testSaveIngredientsAboveDefaultGrowLimit() throws Exception {
+        mockMvc.perform(post("/recipe/2/ingredients")
+                .contentType(MediaType.APPLICATION_FORM_URLENCODED)
+                .param("ingredients[0].description", "salt")
+                .param("ingredients[300].description", "pepper")
+        )
+                .andExpect(status().is3xxRedirection());
+
+        ArgumentCaptor<List<IngredientCommand>> ingredients = ArgumentCaptor.forClass(List.class);
+        verify(ingredientService).saveIngredientCommands(eq(2L), ingredients.capture(), anySet());
+        assertEquals(2, ingredients.getValue().size());
+        assertEquals("pepper", ingredients.getValue().get(1).getDescription());
+    }
+
+    @Test
+    public void testSaveIngredientsAboveFormLimit() throws Exception {
+        mockMvc.perform(post("/recipe/2/ingredients")
+                .contentType(MediaType.APPLICATION_FORM_URLENCODED)
+                .param("ingredients[" + IngredientController.MAX_FORM_INGREDIENTS + "].description", "salt")
+        )
+                .andExpect(status().isBadRequest())
+                .andExpect(view().name("400error"));
+
+        verify(ingredientService, never()).saveIngredientCommands(anyLong(), any(), any());
+    }
+
     @Test
     public void testDeleteIngredient() throws Exception {
         mockMvc.perform(get("/recipe/2/ingredient/1/delete"))
@@ -0,0 +1,69 @@
+package guru.springframework.controllers;
+
+import guru.springframework.domain.Ingredient;
+import guru.springframework.domain.Recipe;
+import guru.springframework.repositories.RecipeRepository;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Renders the ingredient forms for an ingredient without a unit of measure, which the service allows.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+public class IngredientFormIT {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    RecipeRepository recipeRepository;
+
+    Long recipeId;
+    Long ingredientId;
+
+    @Before
+    public void setUp() throws Exception {
+        Recipe recipe = new Recipe();
+        recipe.setDescription("Recipe without units");
+        recipe.addIngredient(new Ingredient("a pinch of love", BigDecimal.ONE, null));
+        recipe = recipeRepository.save(recipe);
+
+        recipeId = recipe.getId();
+        ingredientId = recipe.getIngredients().iterator().next().getId();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        recipeRepository.deleteById(recipeId);
+    }
+
+    @Test
+    public void bulkFormWithoutUom() throws Exception {
+        mockMvc.perform(get("/recipe/" + recipeId + "/ingredients/edit"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("a pinch of love")));
+    }
+
+    @Test
+    public void ingredientFormWithoutUom() throws Exception {
+        mockMvc.perform(get("/recipe/" + recipeId + "/ingredient/" + ingredientId + "/update"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("a pinch of love")));
+    }
+}
@@ -2,7 +2,10 @@ package guru.springframework.controllers;
 
 import guru.springframework.commands.RecipeCommand;
 import guru.springframework.domain.Recipe;
+import guru.springframework.domain.RecipeDetails;
+import guru.springframework.domain.ImageContent;
 import guru.springframework.exceptions.NotFoundException;
+import guru.springframework.services.ImageService;
 import guru.springframework.services.RecipeService;
 import org.junit.Before;
 import org.junit.Test;
@@ -14,11 +17,19 @@ import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.model;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.view;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.util.Collections;
+
+import static org.hamcrest.Matchers.hasProperty;
+import static org.hamcrest.Matchers.is;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
@@ -32,6 +43,9 @@ public class RecipeControllerTest {
     @Mock
     RecipeService recipeService;
 
+    @Mock
+    ImageService imageService;
+
     RecipeController controller;
 
     MockMvc mockMvc;
@@ -40,7 +54,7 @@ public class RecipeControllerTest {
     public void setUp() throws Exception {
         MockitoAnnotations.initMocks(this);
 
-        controller = new RecipeController(recipeService);
+        controller = new RecipeController(recipeService, imageService);
         mockMvc = MockMvcBuilders.standaloneSetup(controller)
                 .setControllerAdvice(new ControllerExceptionHandler())
                 .build();
@@ -48,10 +62,9 @@ public class RecipeControllerTest {
 
     @Test
     public void testGetRecipe() throws Exception {
-        Recipe recipe = new Recipe();
-        recipe.setId(1L);
+        RecipeDetails recipe = details(1L);
 
-        when(recipeService.findById(anyLong())).thenReturn(recipe);
+        when(recipeService.findDetailsById(anyLong())).thenReturn(recipe);
 
         mockMvc.perform(get("/recipe/1/show"))
                 .andExpect(status().isOk())
@@ -59,9 +72,52 @@ public class RecipeControllerTest {
                 .andExpect(model().attributeExists("recipe"));
     }
 
+    @Test
+    public void testGetRecipeWithImageVersion() throws Exception {
+        RecipeDetails recipe = details(1L);
+        ImageContent image = new ImageContent(1L, "abc", "image/jpeg", 3L, null);
+
+        when(recipeService.findDetailsById(anyLong())).thenReturn(recipe);
+        when(imageService.loadImage(anyLong())).thenReturn(image);
+
+        mockMvc.perform(get("/recipe/1/show"))
+                .andExpect(status().isOk())
+                .andExpect(model().attribute("imageVersion", "abc"));
+    }
+
+    @Test
+    public void testGetRecipeNotModified() throws Exception {
+        when(recipeService.findDetailsById(anyLong())).thenReturn(details(1L));
+        when(recipeService.findVersionById(1L)).thenReturn(0L);
+
+        String etag = mockMvc.perform(get("/recipe/1/show"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/recipe/1/show").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        // a new version renders the page again
+        when(recipeService.findVersionById(1L)).thenReturn(1L);
+        mockMvc.perform(get("/recipe/1/show").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+
+        verify(recipeService, times(2)).findDetailsById(1L);
+        verify(imageService, times(2)).loadImage(1L);
+    }
+
+    @Test
+    public void testGetRecipeNotModifiedNotFound() throws Exception {
+        when(recipeService.findVersionById(anyLong())).thenThrow(NotFoundException.class);
+
+        mockMvc.perform(get("/recipe/1/show").header(HttpHeaders.IF_NONE_MATCH, "W/\"stale\""))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     public void testGetRecipeNotFound() throws Exception {
-        when(recipeService.findById(anyLong())).thenThrow(NotFoundException.class);
+        when(recipeService.findDetailsById(anyLong())).thenThrow(NotFoundException.class);
 
         mockMvc.perform(get("/recipe/1/show"))
                 .andExpect(status().isNotFound())
@@ -70,7 +126,7 @@ public class RecipeControllerTest {
 
     @Test
     public void testGetRecipeNumberFormatException() throws Exception {
-        when(recipeService.findById(anyLong())).thenThrow(NotFoundException.class);
+        when(recipeService.findDetailsById(anyLong())).thenThrow(NotFoundException.class);
 
         mockMvc.perform(get("/recipe/abc/show"))
                 .andExpect(status().isBadRequest())
@@ -104,6 +160,26 @@ public class RecipeControllerTest {
                 .andExpect(view().name("redirect:/recipe/2/show"));
     }
 
+    @Test
+    public void testPostStaleForm() throws Exception {
+        when(recipeService.saveRecipeCommand(any())).thenThrow(
+                new ObjectOptimisticLockingFailureException(Recipe.class, 2L));
+        when(recipeService.findVersionById(2L)).thenReturn(5L);
+
+        mockMvc.perform(post("/recipe")
+                        .contentType(MediaType.APPLICATION_FORM_URLENCODED)
+                        .param("id", "2")
+                        .param("version", "4")
+                        .param("description", "some string")
+                        .param("directions", "some directions")
+                )
+                .andExpect(status().isConflict())
+                .andExpect(view().name("recipe/recipeform"))
+                .andExpect(model().attributeHasErrors("recipe"))
+                .andExpect(model().attribute("recipe", hasProperty("version", is(5L))))
+                .andExpect(model().attribute("recipe", hasProperty("description", is("some string"))));
+    }
+
     @Test
     public void testGetUpdateView() throws Exception {
         RecipeCommand command = new RecipeCommand();
@@ -142,4 +218,9 @@ public class RecipeControllerTest {
                 .andExpect(model().attributeExists("recipe"))
                 .andExpect(view().name("recipe/recipeform"));
     }
-}
\ No newline at end of file
+
+    private RecipeDetails details(Long id) {
+        return new RecipeDetails(id, 0L, "description", 10, 20, 4, "source", "url", "directions", null, "notes",
+                Collections.emptyList(), Collections.emptyList());
+    }
+}
@@ -0,0 +1,118 @@
+package guru.springframework.controllers;
+
+import guru.springframework.repositories.RecipeRepository;
+import guru.springframework.services.RecipeDetailsCache;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Counts the SQL statements each recipe page runs. With open-session-in-view off, a view touching an unloaded
+ * association fails the request instead of adding a query.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+public class RecipeStatementCountIT {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    RecipeRepository recipeRepository;
+
+    @Autowired
+    RecipeDetailsCache recipeDetailsCache;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    Statistics statistics;
+    Long recipeId;
+
+    @Before
+    public void setUp() throws Exception {
+        // a bootstrapped recipe, with categories, ingredients and notes
+        recipeId = recipeRepository.findSummariesByIdGreaterThan(0L, PageRequest.of(0, 1)).get(0).getId();
+
+        recipeDetailsCache.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    public void showPage() throws Exception {
+        mockMvc.perform(get("/recipe/" + recipeId + "/show"))
+                .andExpect(status().isOk());
+
+        // the recipe graph, and the image version for the image link
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void repeatedShowPage() throws Exception {
+        mockMvc.perform(get("/recipe/" + recipeId + "/show"));
+        statistics.clear();
+
+        mockMvc.perform(get("/recipe/" + recipeId + "/show"))
+                .andExpect(status().isOk());
+
+        // the recipe comes from the cache, only the image version is read
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void revalidatedShowPage() throws Exception {
+        String etag = mockMvc.perform(get("/recipe/" + recipeId + "/show"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        statistics.clear();
+
+        mockMvc.perform(get("/recipe/" + recipeId + "/show").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        // the version comes with the cached recipe
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void editPage() throws Exception {
+        mockMvc.perform(get("/recipe/" + recipeId + "/update"))
+                .andExpect(status().isOk());
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void ingredientsPage() throws Exception {
+        mockMvc.perform(get("/recipe/" + recipeId + "/ingredients"))
+                .andExpect(status().isOk());
+
+        // the recipe version for the ETag, and the ingredients
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void newIngredientPage() throws Exception {
+        mockMvc.perform(get("/recipe/" + recipeId + "/ingredient/new"))
+                .andExpect(status().isOk());
+
+        // the recipe, the units of measure come from the catalog
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+}
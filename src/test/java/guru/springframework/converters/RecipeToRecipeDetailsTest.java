@@ -0,0 +1,86 @@
+package guru.springframework.converters;
+
+import guru.springframework.domain.Category;
+import guru.springframework.domain.Difficulty;
+import guru.springframework.domain.Ingredient;
+import guru.springframework.domain.Notes;
+import guru.springframework.domain.Recipe;
+import guru.springframework.domain.RecipeDetails;
+import guru.springframework.domain.UnitOfMeasure;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class RecipeToRecipeDetailsTest {
+
+    public static final Long RECIPE_ID = 1L;
+    public static final String DESCRIPTION = "Tacos";
+    public static final String RECIPE_NOTES = "Notes";
+
+    RecipeToRecipeDetails converter;
+
+    @Before
+    public void setUp() throws Exception {
+        converter = new RecipeToRecipeDetails(new IngredientToIngredientDetails());
+    }
+
+    @Test
+    public void testNullObject() throws Exception {
+        assertNull(converter.convert(null));
+    }
+
+    @Test
+    public void testEmptyObject() throws Exception {
+        RecipeDetails details = converter.convert(new Recipe());
+
+        assertNotNull(details);
+        assertNull(details.getNotes());
+        assertTrue(details.getIngredients().isEmpty());
+    }
+
+    @Test
+    public void convert() throws Exception {
+        //given
+        Recipe recipe = new Recipe();
+        recipe.setId(RECIPE_ID);
+        recipe.setDescription(DESCRIPTION);
+        recipe.setDifficulty(Difficulty.EASY);
+
+        Notes notes = new Notes();
+        notes.setRecipeNotes(RECIPE_NOTES);
+        recipe.setNotes(notes);
+
+        Category mexican = new Category();
+        mexican.setDescription("Mexican");
+        Category american = new Category();
+        american.setDescription("American");
+        recipe.getCategories().addAll(Arrays.asList(mexican, american));
+
+        UnitOfMeasure uom = new UnitOfMeasure();
+        uom.setDescription("Cup");
+        Ingredient second = new Ingredient("second", BigDecimal.ONE, uom);
+        second.setId(4L);
+        Ingredient first = new Ingredient("first", BigDecimal.TEN, null);
+        first.setId(3L);
+        recipe.addIngredient(second);
+        recipe.addIngredient(first);
+
+        //when
+        RecipeDetails details = converter.convert(recipe);
+
+        //then
+        assertEquals(RECIPE_ID, details.getId());
+        assertEquals(DESCRIPTION, details.getDescription());
+        assertEquals(Difficulty.EASY, details.getDifficulty());
+        assertEquals(RECIPE_NOTES, details.getNotes());
+        assertEquals(Arrays.asList("American", "Mexican"), details.getCategories());
+        assertEquals(Long.valueOf(3L), details.getIngredients().get(0).getId());
+        assertNull(details.getIngredients().get(0).getUomDescription());
+        assertEquals("Cup", details.getIngredients().get(1).getUomDescription());
+        assertEquals(RECIPE_ID, details.getIngredients().get(1).getRecipeId());
+    }
+}
@@ -0,0 +1,55 @@
+package guru.springframework.domain;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class RecipeTest {
+
+    @Test
+    public void equalById() throws Exception {
+        Recipe recipe = new Recipe();
+        recipe.setId(1L);
+        recipe.setDescription("Tacos");
+        Recipe other = new Recipe();
+        other.setId(1L);
+
+        assertEquals(recipe, other);
+        assertEquals(recipe.hashCode(), other.hashCode());
+    }
+
+    @Test
+    public void newRecipesAreOnlyEqualToThemselves() throws Exception {
+        Recipe recipe = new Recipe();
+        Recipe other = new Recipe();
+
+        assertEquals(recipe, recipe);
+        assertNotEquals(recipe, other);
+    }
+
+    @Test
+    public void hashCodeIgnoresAssociations() throws Exception {
+        Recipe recipe = new Recipe();
+        int hashCode = recipe.hashCode();
+
+        recipe.addIngredient(new Ingredient());
+        recipe.setNotes(new Notes());
+
+        assertEquals(hashCode, recipe.hashCode());
+    }
+
+    @Test
+    public void staysInSetWhenIdIsAssigned() throws Exception {
+        Ingredient ingredient = new Ingredient();
+        Set<Ingredient> ingredients = new HashSet<>();
+        ingredients.add(ingredient);
+
+        ingredient.setId(5L);
+
+        assertTrue(ingredients.contains(ingredient));
+        assertTrue(ingredients.remove(ingredient));
+    }
+}
@@ -0,0 +1,85 @@
+package guru.springframework.repositories;
+
+import guru.springframework.domain.Ingredient;
+import guru.springframework.domain.Recipe;
+import org.hibernate.Hibernate;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(SpringRunner.class)
+@DataJpaTest
+public class IngredientRepositoryIT {
+
+    @Autowired
+    RecipeRepository recipeRepository;
+
+    @Autowired
+    IngredientRepository ingredientRepository;
+
+    @Autowired
+    UnitOfMeasureRepository unitOfMeasureRepository;
+
+    @Autowired
+    TestEntityManager entityManager;
+
+    Long recipeId;
+    Long ingredientId;
+
+    @Before
+    public void setUp() throws Exception {
+        Recipe recipe = new Recipe();
+        recipe.setDescription("Ingredient recipe");
+        recipe.addIngredient(new Ingredient("salt", new BigDecimal(1),
+                unitOfMeasureRepository.findByDescription("Teaspoon").get()));
+        recipe = recipeRepository.save(recipe);
+
+        entityManager.flush();
+        recipeId = recipe.getId();
+        ingredientId = recipe.getIngredients().iterator().next().getId();
+        entityManager.clear();
+    }
+
+    @Test
+    public void findByIdAndRecipeId() throws Exception {
+        Ingredient ingredient = ingredientRepository.findByIdAndRecipeId(ingredientId, recipeId).get();
+
+        assertEquals("salt", ingredient.getDescription());
+        assertTrue(Hibernate.isInitialized(ingredient.getUom()));
+        assertEquals("Teaspoon", ingredient.getUom().getDescription());
+        assertFalse("recipe was loaded with the ingredient", Hibernate.isInitialized(ingredient.getRecipe()));
+    }
+
+    @Test
+    public void saveWithRecipeReferenceInsertsOnlyTheIngredient() throws Exception {
+        // a reference, the recipe row is not read
+        Recipe recipeReference = entityManager.getEntityManager().getReference(Recipe.class, recipeId);
+        Ingredient ingredient = new Ingredient("pepper", new BigDecimal(2),
+                unitOfMeasureRepository.findByDescription("Pinch").get(), recipeReference);
+
+        Long id = ingredientRepository.save(ingredient).getId();
+        entityManager.flush();
+        entityManager.clear();
+
+        assertEquals("pepper", ingredientRepository.findByIdAndRecipeId(id, recipeId).get().getDescription());
+        assertEquals(2, recipeRepository.findById(recipeId).get().getIngredients().size());
+    }
+
+    @Test
+    public void findByIdAndOtherRecipeId() throws Exception {
+        Optional<Ingredient> ingredient = ingredientRepository.findByIdAndRecipeId(ingredientId, recipeId + 1);
+
+        assertFalse(ingredient.isPresent());
+    }
+}
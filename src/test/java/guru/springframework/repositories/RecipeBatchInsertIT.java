@@ -0,0 +1,80 @@
+package guru.springframework.repositories;
+
+import guru.springframework.domain.Ingredient;
+import guru.springframework.domain.Notes;
+import guru.springframework.domain.Recipe;
+import guru.springframework.domain.UnitOfMeasure;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@Slf4j
+@RunWith(SpringRunner.class)
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+public class RecipeBatchInsertIT {
+
+    static final int RECIPES = 500;
+    // a recipe, its notes and two ingredients
+    static final int ROWS = RECIPES * 4;
+
+    @Autowired
+    RecipeRepository recipeRepository;
+
+    @Autowired
+    UnitOfMeasureRepository unitOfMeasureRepository;
+
+    @Autowired
+    TestEntityManager entityManager;
+
+    Statistics statistics;
+
+    @Before
+    public void setUp() throws Exception {
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    public void insertsAreBatched() throws Exception {
+        UnitOfMeasure uom = unitOfMeasureRepository.findByDescription("Cup").get();
+        List<Recipe> recipes = new ArrayList<>(RECIPES);
+        for (int i = 0; i < RECIPES; i++) {
+            Recipe recipe = new Recipe();
+            recipe.setDescription("Recipe " + i);
+            recipe.setNotes(new Notes());
+            recipe.addIngredient(new Ingredient("first", BigDecimal.ONE, uom));
+            recipe.addIngredient(new Ingredient("second", BigDecimal.TEN, uom));
+            recipes.add(recipe);
+        }
+        statistics.clear();
+
+        long start = System.nanoTime();
+        recipeRepository.saveAll(recipes);
+        entityManager.flush();
+        long elapsed = System.nanoTime() - start;
+
+        log.info("Inserted {} rows in {} ms ({} rows/s), {} statements prepared.", ROWS,
+                TimeUnit.NANOSECONDS.toMillis(elapsed), ROWS * TimeUnit.SECONDS.toNanos(1) / Math.max(elapsed, 1),
+                statistics.getPrepareStatementCount());
+
+        assertEquals(ROWS, statistics.getEntityInsertCount());
+        // one statement per batch of 50 inserts and per block of 50 ids, instead of one per row
+        assertTrue("inserts were not batched: " + statistics.getPrepareStatementCount() + " statements",
+                statistics.getPrepareStatementCount() < ROWS / 10);
+    }
+}
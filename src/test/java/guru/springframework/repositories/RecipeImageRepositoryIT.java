@@ -0,0 +1,139 @@
+package guru.springframework.repositories;
+
+import guru.springframework.domain.ImageContent;
+import guru.springframework.domain.ImageRendition;
+import guru.springframework.domain.Recipe;
+import guru.springframework.domain.RecipeImage;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.EntityKey;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.time.Instant;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(SpringRunner.class)
+@DataJpaTest
+public class RecipeImageRepositoryIT {
+
+    @Autowired
+    RecipeRepository recipeRepository;
+
+    @Autowired
+    RecipeImageRepository recipeImageRepository;
+
+    @Autowired
+    TestEntityManager entityManager;
+
+    static final Instant UPLOADED = Instant.parse("2019-01-01T00:00:00Z");
+    static final Instant RENDERED = Instant.parse("2019-01-01T00:00:05Z");
+
+    Long recipeId;
+
+    @Before
+    public void setUp() throws Exception {
+        Recipe recipe = new Recipe();
+        recipe.setDescription("Image recipe");
+        recipeId = recipeRepository.save(recipe).getId();
+
+        RecipeImage recipeImage = new RecipeImage();
+        recipeImage.setRecipe(recipe);
+        recipeImage.setContentHash("abc");
+        recipeImage.setContentType("image/jpeg");
+        recipeImage.setContentLength(3L);
+        recipeImage.setLastModified(UPLOADED);
+        recipeImage.getRenditions().put(64, new ImageRendition("small", "image/png", 1L, RENDERED));
+        recipeImageRepository.save(recipeImage);
+
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    public void loadingRecipeDoesNotReadImage() throws Exception {
+        Recipe recipe = recipeRepository.findById(recipeId).get();
+
+        assertEquals(recipeId, recipe.getId());
+        assertFalse("image was loaded together with the recipe", imageInPersistenceContext());
+    }
+
+    @Test
+    public void findImageByRecipeId() throws Exception {
+        RecipeImage recipeImage = recipeImageRepository.findById(recipeId).get();
+
+        assertEquals("abc", recipeImage.getContentHash());
+        assertEquals(Long.valueOf(3L), recipeImage.getContentLength());
+    }
+
+    @Test
+    public void findContentDoesNotLoadEntities() throws Exception {
+        ImageContent content = recipeImageRepository.findContentByRecipeId(recipeId).get();
+
+        assertEquals("abc", content.getVersion());
+        assertEquals("abc", content.getContentHash());
+        assertEquals(Long.valueOf(3L), content.getContentLength());
+        assertFalse(content.isProvisional());
+        assertFalse("image entity was loaded for its metadata", imageInPersistenceContext());
+    }
+
+    @Test
+    public void findRenditionContent() throws Exception {
+        ImageContent content = recipeImageRepository.findRenditionContentByRecipeId(recipeId, 64).get();
+
+        assertEquals("abc", content.getVersion());
+        assertEquals("small", content.getContentHash());
+        assertEquals("image/png", content.getContentType());
+        assertEquals(Long.valueOf(1L), content.getContentLength());
+        assertEquals(RENDERED, content.getLastModified());
+        assertFalse(content.isProvisional());
+        assertFalse(imageInPersistenceContext());
+    }
+
+    @Test
+    public void findMissingRenditionContentGivesOriginal() throws Exception {
+        ImageContent content = recipeImageRepository.findRenditionContentByRecipeId(recipeId, 200).get();
+
+        assertEquals("abc", content.getContentHash());
+        assertEquals("image/jpeg", content.getContentType());
+        assertEquals(UPLOADED, content.getLastModified());
+        assertTrue(content.isProvisional());
+    }
+
+    @Test
+    public void findContentWithoutImage() throws Exception {
+        assertFalse(recipeImageRepository.findContentByRecipeId(recipeId + 100).isPresent());
+        assertFalse(recipeImageRepository.findRenditionContentByRecipeId(recipeId + 100, 64).isPresent());
+    }
+
+    @Test
+    public void contentReferencedByImageOrRendition() throws Exception {
+        assertTrue(recipeImageRepository.isContentReferenced("abc"));
+        assertTrue(recipeImageRepository.isContentReferenced("small"));
+        assertFalse(recipeImageRepository.isContentReferenced("replaced"));
+    }
+
+    @Test
+    public void deletingRecipeDeletesImage() throws Exception {
+        recipeRepository.deleteById(recipeId);
+        entityManager.flush();
+        entityManager.clear();
+
+        assertFalse(recipeImageRepository.existsById(recipeId));
+    }
+
+    private boolean imageInPersistenceContext() {
+        return entityManager.getEntityManager().unwrap(Session.class)
+                .getStatistics()
+                .getEntityKeys()
+                .stream()
+                .anyMatch(key -> RecipeImage.class.getName().equals(((EntityKey) key).getEntityName()));
+    }
+}
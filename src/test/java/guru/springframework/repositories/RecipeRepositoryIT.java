@@ -0,0 +1,55 @@
+package guru.springframework.repositories;
+
+import guru.springframework.domain.Recipe;
+import guru.springframework.domain.RecipeSummary;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(SpringRunner.class)
+@DataJpaTest
+public class RecipeRepositoryIT {
+
+    @Autowired
+    RecipeRepository recipeRepository;
+
+    Long firstId;
+
+    @Before
+    public void setUp() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            Recipe recipe = new Recipe();
+            recipe.setDescription("Recipe " + i);
+            Recipe saved = recipeRepository.save(recipe);
+
+            if (firstId == null) {
+                firstId = saved.getId();
+            }
+        }
+    }
+
+    @Test
+    public void findSummariesFirstPage() throws Exception {
+        List<RecipeSummary> summaries = recipeRepository.findSummariesByIdGreaterThan(0L, PageRequest.of(0, 2));
+
+        assertEquals(2, summaries.size());
+        assertEquals("Recipe 0", summaries.get(0).getDescription());
+        assertEquals("Recipe 1", summaries.get(1).getDescription());
+    }
+
+    @Test
+    public void findSummariesAfterCursor() throws Exception {
+        List<RecipeSummary> summaries = recipeRepository.findSummariesByIdGreaterThan(firstId + 2, PageRequest.of(0, 10));
+
+        assertEquals(2, summaries.size());
+        assertEquals("Recipe 3", summaries.get(0).getDescription());
+    }
+}
@@ -0,0 +1,114 @@
+package guru.springframework.repositories;
+
+import guru.springframework.domain.Category;
+import guru.springframework.domain.Ingredient;
+import guru.springframework.domain.Notes;
+import guru.springframework.domain.Recipe;
+import guru.springframework.domain.UnitOfMeasure;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import java.math.BigDecimal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Loads go through separate transactions, as in the application, so the cache is the only thing shared between them.
+ */
+@RunWith(SpringRunner.class)
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class SecondLevelCacheIT {
+
+    @Autowired
+    RecipeRepository recipeRepository;
+
+    @Autowired
+    UnitOfMeasureRepository unitOfMeasureRepository;
+
+    @Autowired
+    CategoryRepository categoryRepository;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    Statistics statistics;
+    Long recipeId;
+
+    @Before
+    public void setUp() throws Exception {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (recipeId != null) {
+            recipeRepository.deleteById(recipeId);
+        }
+    }
+
+    @Test
+    public void unitOfMeasureIsLoadedFromCache() throws Exception {
+        Long id = unitOfMeasureRepository.findByDescription("Cup").get().getId();
+        statistics.clear();
+
+        UnitOfMeasure first = unitOfMeasureRepository.findById(id).get();
+        UnitOfMeasure second = unitOfMeasureRepository.findById(id).get();
+
+        assertEquals("Cup", first.getDescription());
+        assertEquals("Cup", second.getDescription());
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(2, statistics.getSecondLevelCacheHitCount());
+    }
+
+    @Test
+    public void recipeIsLoadedFromCache() throws Exception {
+        UnitOfMeasure uom = unitOfMeasureRepository.findByDescription("Cup").get();
+        Category category = categoryRepository.findByDescription("Mexican").get();
+
+        Recipe recipe = new Recipe();
+        recipe.setDescription("Cached recipe");
+        recipe.setNotes(new Notes());
+        recipe.getCategories().add(category);
+        recipe.addIngredient(new Ingredient("first", BigDecimal.ONE, uom));
+        recipe.addIngredient(new Ingredient("second", BigDecimal.TEN, uom));
+        recipeId = recipeRepository.save(recipe).getId();
+
+        // the first load reads the collections, which are cached on load
+        loadWithCollections(recipeId);
+        statistics.clear();
+
+        Recipe loaded = loadWithCollections(recipeId);
+
+        assertEquals(2, loaded.getIngredients().size());
+        assertEquals(1, loaded.getCategories().size());
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertTrue(statistics.getSecondLevelCacheHitCount() > 0);
+        assertEquals(0, statistics.getSecondLevelCacheMissCount());
+    }
+
+    private Recipe loadWithCollections(Long id) {
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            Recipe recipe = recipeRepository.findById(id).get();
+            recipe.getIngredients().forEach(ingredient -> ingredient.getUom().getDescription());
+            recipe.getCategories().size();
+            return recipe;
+        });
+    }
+}
@@ -0,0 +1,87 @@
+package guru.springframework.services;
+
+import guru.springframework.exceptions.NotFoundException;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.util.StreamUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class FileSystemImageStoreTest {
+
+    static final String HASH = "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08";
+    static final byte[] CONTENT = "test".getBytes();
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    FileSystemImageStore imageStore;
+
+    @Before
+    public void setUp() throws Exception {
+        imageStore = new FileSystemImageStore(folder.getRoot().getPath());
+    }
+
+    @Test
+    public void saveAndTransfer() throws Exception {
+        imageStore.save(HASH, CONTENT.length, new ByteArrayInputStream(CONTENT));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        imageStore.transferTo(HASH, Channels.newChannel(out));
+
+        assertTrue(imageStore.contains(HASH));
+        assertArrayEquals(CONTENT, out.toByteArray());
+    }
+
+    @Test
+    public void transferRange() throws Exception {
+        imageStore.save(HASH, CONTENT.length, new ByteArrayInputStream(CONTENT));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        imageStore.transferTo(HASH, 1, 2, Channels.newChannel(out));
+
+        assertArrayEquals("es".getBytes(), out.toByteArray());
+    }
+
+    @Test
+    public void saveAndRead() throws Exception {
+        imageStore.save(HASH, CONTENT.length, new ByteArrayInputStream(CONTENT));
+
+        byte[] read = imageStore.read(HASH, StreamUtils::copyToByteArray);
+
+        assertArrayEquals(CONTENT, read);
+    }
+
+    @Test
+    public void saveKeepsExistingContent() throws Exception {
+        imageStore.save(HASH, CONTENT.length, new ByteArrayInputStream(CONTENT));
+        imageStore.save(HASH, 5, new ByteArrayInputStream("other".getBytes()));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        imageStore.transferTo(HASH, Channels.newChannel(out));
+
+        assertArrayEquals(CONTENT, out.toByteArray());
+    }
+
+    @Test
+    public void delete() throws Exception {
+        imageStore.save(HASH, CONTENT.length, new ByteArrayInputStream(CONTENT));
+
+        imageStore.delete(HASH);
+
+        assertFalse(imageStore.contains(HASH));
+    }
+
+    @Test(expected = NotFoundException.class)
+    public void transferMissingImage() throws Exception {
+        imageStore.transferTo(HASH, Channels.newChannel(new ByteArrayOutputStream()));
+    }
+}
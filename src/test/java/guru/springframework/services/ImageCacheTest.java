@@ -0,0 +1,92 @@
+package guru.springframework.services;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ImageCacheTest {
+
+    ImageCache imageCache;
+
+    @Before
+    public void setUp() throws Exception {
+        imageCache = new ImageCache(10, false);
+    }
+
+    @Test
+    public void testHitAndMiss() throws Exception {
+        imageCache.put(1L, "a", bytes(4));
+
+        assertNotNull(imageCache.get(1L, "a"));
+        assertNull(imageCache.get(1L, "b"));
+        assertNull(imageCache.get(2L, "a"));
+
+        assertEquals(1, imageCache.getHits());
+        assertEquals(2, imageCache.getMisses());
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsedBySize() throws Exception {
+        imageCache.put(1L, "a", bytes(4));
+        imageCache.put(2L, "b", bytes(4));
+        imageCache.get(1L, "a");
+
+        imageCache.put(3L, "c", bytes(4));
+
+        assertNotNull(imageCache.get(1L, "a"));
+        assertNull(imageCache.get(2L, "b"));
+        assertNotNull(imageCache.get(3L, "c"));
+        assertEquals(1, imageCache.getEvictions());
+        assertEquals(8, imageCache.getSize());
+    }
+
+    @Test
+    public void testTooLargeIsNotCached() throws Exception {
+        assertFalse(imageCache.accepts(11));
+
+        imageCache.put(1L, "a", bytes(11));
+
+        assertEquals(0, imageCache.getEntryCount());
+    }
+
+    @Test
+    public void testEvictRecipe() throws Exception {
+        imageCache.put(1L, "original", bytes(4));
+        imageCache.put(1L, "rendition", bytes(2));
+        imageCache.put(2L, "original", bytes(3));
+
+        imageCache.evict(1L);
+
+        assertEquals(1, imageCache.getEntryCount());
+        assertEquals(3, imageCache.getSize());
+        assertEquals(0, imageCache.getEvictions());
+    }
+
+    @Test
+    public void testCachedBytesAreNotChangedByReaders() throws Exception {
+        imageCache.put(1L, "a", bytes(4));
+
+        ByteBuffer view = imageCache.get(1L, "a");
+        view.position(4);
+
+        assertEquals(4, imageCache.get(1L, "a").remaining());
+        assertTrue(view.isReadOnly());
+    }
+
+    @Test
+    public void testDirectBuffers() throws Exception {
+        assertTrue(new ImageCache(10, true).allocate(4).isDirect());
+        assertFalse(imageCache.allocate(4).isDirect());
+    }
+
+    private ByteBuffer bytes(int length) {
+        return ByteBuffer.wrap(new byte[length]);
+    }
+}
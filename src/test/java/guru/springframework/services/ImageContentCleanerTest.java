@@ -0,0 +1,62 @@
+package guru.springframework.services;
+
+import guru.springframework.repositories.RecipeImageRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ImageContentCleanerTest {
+
+    @Mock
+    RecipeImageRepository recipeImageRepository;
+
+    @Mock
+    ImageStore imageStore;
+
+    ImageContentCleaner imageContentCleaner;
+
+    @Before
+    public void setUp() throws Exception {
+        imageContentCleaner = new ImageContentCleaner(recipeImageRepository, imageStore);
+    }
+
+    @Test
+    public void testDeletesReplacedContent() throws Exception {
+        imageContentCleaner.onImageReplaced(new RecipeImageReplacedEvent(1L, new HashSet<>(Arrays.asList("old", "small"))));
+
+        verify(imageStore).delete("old");
+        verify(imageStore).delete("small");
+    }
+
+    @Test
+    public void testKeepsContentStillReferenced() throws Exception {
+        // another recipe has an image with the same bytes
+        when(recipeImageRepository.isContentReferenced("shared")).thenReturn(true);
+
+        imageContentCleaner.deleteUnreferenced(Arrays.asList("shared", "old"));
+
+        verify(imageStore, never()).delete("shared");
+        verify(imageStore).delete("old");
+    }
+
+    @Test
+    public void testFailedDeleteDoesNotStopTheOthers() throws Exception {
+        doThrow(new IOException("disk error")).when(imageStore).delete("old");
+
+        imageContentCleaner.deleteUnreferenced(Arrays.asList("old", "small"));
+
+        verify(imageStore).delete("small");
+    }
+}
@@ -0,0 +1,219 @@
+package guru.springframework.services;
+
+import guru.springframework.domain.ImageRendition;
+import guru.springframework.domain.RecipeImage;
+import guru.springframework.exceptions.NotFoundException;
+import guru.springframework.repositories.RecipeImageRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.util.StreamUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ImageRenditionServiceImplTest {
+
+    static final String IMAGE_HASH = "original";
+    static final long MAX_PIXELS = 10_000_000;
+
+    @Mock
+    RecipeImageRepository recipeImageRepository;
+
+    @Mock
+    ImageStore imageStore;
+
+    @Mock
+    ImageContentCleaner imageContentCleaner;
+
+    @Mock
+    PlatformTransactionManager transactionManager;
+
+    ImageRenditionServiceImpl imageRenditionService;
+
+    RecipeImage recipeImage;
+
+    @Before
+    public void setUp() throws Exception {
+        imageRenditionService = new ImageRenditionServiceImpl(recipeImageRepository, imageStore, imageContentCleaner,
+                transactionManager,
+                new int[]{64, 200, 400}, MAX_PIXELS);
+
+        recipeImage = new RecipeImage();
+        recipeImage.setContentHash(IMAGE_HASH);
+        recipeImage.setContentType("image/jpeg");
+        recipeImage.setContentLength(1000L);
+    }
+
+    @Test
+    public void testCreateRenditions() throws Exception {
+        givenStoredImage(800, 600, BufferedImage.TYPE_INT_RGB);
+        when(recipeImageRepository.findById(anyLong())).thenReturn(Optional.of(recipeImage));
+
+        imageRenditionService.createRenditions(1L, IMAGE_HASH);
+
+        verify(imageStore, times(3)).save(anyString(), anyLong(), any(InputStream.class));
+        verify(recipeImageRepository).save(recipeImage);
+        verify(imageContentCleaner, never()).deleteUnreferenced(any());
+        assertEquals(3, recipeImage.getRenditions().size());
+
+        ImageRendition small = recipeImage.getRenditions().get(64);
+        assertEquals("image/jpeg", small.getContentType());
+        assertNotEquals(IMAGE_HASH, small.getContentHash());
+        assertTrue(small.getContentLength() < recipeImage.getRenditions().get(400).getContentLength());
+    }
+
+    @Test
+    public void testSmallImageIsNotScaledUp() throws Exception {
+        givenStoredImage(100, 50, BufferedImage.TYPE_INT_ARGB);
+        when(recipeImageRepository.findById(anyLong())).thenReturn(Optional.of(recipeImage));
+
+        imageRenditionService.createRenditions(1L, IMAGE_HASH);
+
+        verify(imageStore, times(1)).save(anyString(), anyLong(), any(InputStream.class));
+        assertEquals("image/png", recipeImage.getRenditions().get(64).getContentType());
+        assertEquals(IMAGE_HASH, recipeImage.getRenditions().get(200).getContentHash());
+        assertEquals(IMAGE_HASH, recipeImage.getRenditions().get(400).getContentHash());
+        // no longer provisional, so revalidation by date sees a change too
+        assertNotNull(recipeImage.getRenditions().get(400).getLastModified());
+    }
+
+    @Test
+    public void testImageReplacedMeanwhile() throws Exception {
+        givenStoredImage(800, 600, BufferedImage.TYPE_INT_RGB);
+        recipeImage.setContentHash("newer");
+        when(recipeImageRepository.findById(anyLong())).thenReturn(Optional.of(recipeImage));
+
+        imageRenditionService.createRenditions(1L, IMAGE_HASH);
+
+        verify(recipeImageRepository, never()).save(any());
+        assertTrue(recipeImage.getRenditions().isEmpty());
+        verify(imageContentCleaner).deleteUnreferenced(argThat(hashes -> hashes.size() == 3));
+    }
+
+    @Test
+    public void testImageDeletedMeanwhile() throws Exception {
+        when(imageStore.read(eq(IMAGE_HASH), any())).thenThrow(new NotFoundException("Image not found"));
+
+        imageRenditionService.createRenditions(1L, IMAGE_HASH);
+
+        verify(imageStore, never()).save(anyString(), anyLong(), any());
+        verify(recipeImageRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    public void testLargeImageIsSubsampled() throws Exception {
+        givenStoredImage(4000, 2000, BufferedImage.TYPE_BYTE_GRAY);
+        when(recipeImageRepository.findById(anyLong())).thenReturn(Optional.of(recipeImage));
+        List<byte[]> saved = new ArrayList<>();
+        doAnswer(invocation -> saved.add(StreamUtils.copyToByteArray(invocation.getArgument(2))))
+                .when(imageStore).save(anyString(), anyLong(), any(InputStream.class));
+
+        imageRenditionService.createRenditions(1L, IMAGE_HASH);
+
+        assertEquals(3, saved.size());
+        int largest = 0;
+        for (byte[] rendition : saved) {
+            largest = Math.max(largest, ImageIO.read(new ByteArrayInputStream(rendition)).getWidth());
+        }
+        assertEquals(400, largest);
+    }
+
+    @Test
+    public void testImageWithTooManyPixels() throws Exception {
+        // small on disk, 400 megapixels once decoded
+        givenStoredContent(blankPng(20000, 20000));
+
+        imageRenditionService.createRenditions(1L, IMAGE_HASH);
+
+        verify(imageStore, never()).save(anyString(), anyLong(), any());
+        verify(recipeImageRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    public void testUnreadableImage() throws Exception {
+        givenStoredContent("not an image".getBytes());
+
+        imageRenditionService.createRenditions(1L, IMAGE_HASH);
+
+        verify(imageStore, never()).save(anyString(), anyLong(), any());
+        verify(recipeImageRepository, never()).findById(anyLong());
+    }
+
+    private void givenStoredImage(int width, int height, int type) throws Exception {
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, type), "png", encoded);
+        givenStoredContent(encoded.toByteArray());
+    }
+
+    private void givenStoredContent(byte[] content) throws Exception {
+        when(imageStore.read(eq(IMAGE_HASH), any())).thenAnswer(invocation ->
+                invocation.<ImageStore.ContentReader<?>>getArgument(1).read(new ByteArrayInputStream(content)));
+    }
+
+    // a black and white png, a few kilobytes on disk however large, as its rows of zeros compress well
+    private static byte[] blankPng(int width, int height) throws Exception {
+        ByteBuffer header = ByteBuffer.allocate(13).putInt(width).putInt(height)
+                .put((byte) 1).put((byte) 0).put((byte) 0).put((byte) 0).put((byte) 0);
+
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        try (DeflaterOutputStream deflater = new DeflaterOutputStream(data, new Deflater(Deflater.BEST_COMPRESSION))) {
+            // each row is a filter type byte followed by one bit per pixel
+            byte[] row = new byte[1 + (width + 7) / 8];
+            for (int y = 0; y < height; y++) {
+                deflater.write(row);
+            }
+        }
+
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(png);
+        out.write(new byte[]{(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'});
+        writeChunk(out, "IHDR", header.array());
+        writeChunk(out, "IDAT", data.toByteArray());
+        writeChunk(out, "IEND", new byte[0]);
+        return png.toByteArray();
+    }
+
+    private static void writeChunk(DataOutputStream out, String type, byte[] data) throws Exception {
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data);
+
+        out.writeInt(data.length);
+        out.write(typeBytes);
+        out.write(data);
+        out.writeInt((int) crc.getValue());
+    }
+}
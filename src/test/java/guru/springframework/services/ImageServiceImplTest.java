@@ -1,51 +1,326 @@
 package guru.springframework.services;
 
+import guru.springframework.domain.ImageContent;
+import guru.springframework.domain.ImageRendition;
 import guru.springframework.domain.Recipe;
+import guru.springframework.domain.RecipeImage;
+import guru.springframework.exceptions.ImageTooLargeException;
+import guru.springframework.exceptions.NotFoundException;
+import guru.springframework.exceptions.UnsupportedImageTypeException;
+import guru.springframework.repositories.RecipeImageRepository;
 import guru.springframework.repositories.RecipeRepository;
+import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.ArgumentCaptor;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.web.multipart.MultipartFile;
 
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.Optional;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @RunWith(MockitoJUnitRunner.class)
 public class ImageServiceImplTest {
 
+    static final long MAX_IMAGE_SIZE = 100;
+    static final int[] RENDITION_SIZES = {400, 64, 200};
+    static final long CACHE_SIZE = 1000;
+
+    // sha-256 of "fake image content stream here"
+    static final String IMAGE_HASH = "b439c21ba510122294a53f1adfb332651a59fe13586871102f600cb7dfab151f";
+
     @Mock
     RecipeRepository recipeRepository;
 
-    @InjectMocks
+    @Mock
+    RecipeImageRepository recipeImageRepository;
+
+    @Mock
+    ImageStore imageStore;
+
+    @Mock
+    ApplicationEventPublisher eventPublisher;
+
+    ImageCache imageCache;
+
     ImageServiceImpl imageServiceImpl;
 
+    @Before
+    public void setUp() throws Exception {
+        imageCache = new ImageCache(CACHE_SIZE, false);
+        imageServiceImpl = new ImageServiceImpl(recipeRepository, recipeImageRepository, imageStore, imageCache,
+                eventPublisher, MAX_IMAGE_SIZE, RENDITION_SIZES, new CoalescedLoads());
+    }
+
     @Test
     public void testSaveImageFile() throws Exception {
         Long id = 1L;
+        // the declared type is ignored, the stored one is recognised from the content
         MultipartFile multipartFile = new MockMultipartFile(
                 "imagefile",
                 "testing.txt",
-                "text/plain",
-                "fake image content stream here".getBytes());
+                "text/html",
+                image(0x336699));
         Recipe recipe = new Recipe();
         recipe.setId(id);
         Optional<Recipe> recipeOptional = Optional.of(recipe);
 
+        when(recipeImageRepository.findById(anyLong())).thenReturn(Optional.empty());
         when(recipeRepository.findById(anyLong())).thenReturn(recipeOptional);
-        ArgumentCaptor<Recipe> argumentCaptor = ArgumentCaptor.forClass(Recipe.class);
+        ArgumentCaptor<RecipeImage> argumentCaptor = ArgumentCaptor.forClass(RecipeImage.class);
 
         imageServiceImpl.saveImageFile(id, multipartFile);
 
-        verify(recipeRepository).save(argumentCaptor.capture());
-        Recipe savedRecipe = argumentCaptor.getValue();
-        assertEquals(multipartFile.getBytes().length, savedRecipe.getImage().length);
+        verify(recipeImageRepository).save(argumentCaptor.capture());
+        RecipeImage savedImage = argumentCaptor.getValue();
+        assertSame(recipe, savedImage.getRecipe());
+        assertEquals(Long.valueOf(multipartFile.getSize()), savedImage.getContentLength());
+        assertEquals("image/png", savedImage.getContentType());
+        assertEquals(ContentHash.of(multipartFile.getBytes()), savedImage.getContentHash());
+        assertNotNull(savedImage.getLastModified());
+        verify(imageStore).save(eq(savedImage.getContentHash()), eq(multipartFile.getSize()), any(InputStream.class));
+
+        ArgumentCaptor<RecipeImageSavedEvent> eventCaptor = ArgumentCaptor.forClass(RecipeImageSavedEvent.class);
+        verify(eventPublisher).publishEvent(eventCaptor.capture());
+        assertEquals(id, eventCaptor.getValue().getRecipeId());
+        assertEquals(savedImage.getContentHash(), eventCaptor.getValue().getContentHash());
+    }
+
+    @Test(expected = UnsupportedImageTypeException.class)
+    public void testSaveImageFileRejectsHtml() throws Exception {
+        MultipartFile multipartFile = new MockMultipartFile(
+                "imagefile",
+                "image.png",
+                "image/png",
+                "<html><script>alert(document.cookie)</script></html>".getBytes());
+        RecipeImage existing = new RecipeImage();
+
+        when(recipeImageRepository.findById(anyLong())).thenReturn(Optional.of(existing));
+
+        try {
+            imageServiceImpl.saveImageFile(1L, multipartFile);
+        } finally {
+            verify(imageStore, never()).save(anyString(), anyLong(), any());
+            verify(recipeImageRepository, never()).save(any());
+        }
+    }
+
+    @Test
+    public void testSaveImageFileClearsStaleRenditions() throws Exception {
+        RecipeImage existing = new RecipeImage();
+        existing.setContentHash("old");
+        existing.getRenditions().put(64, new ImageRendition("small", "image/jpeg", 1L));
+
+        when(recipeImageRepository.findById(anyLong())).thenReturn(Optional.of(existing));
+
+        imageServiceImpl.saveImageFile(1L, new MockMultipartFile("imagefile", image(0x336699)));
+
+        assertTrue(existing.getRenditions().isEmpty());
+        ArgumentCaptor<Object> eventCaptor = ArgumentCaptor.forClass(Object.class);
+        verify(eventPublisher, times(2)).publishEvent(eventCaptor.capture());
+        RecipeImageReplacedEvent replaced = (RecipeImageReplacedEvent) eventCaptor.getAllValues().get(0);
+        assertEquals(new HashSet<>(Arrays.asList("old", "small")), replaced.getContentHashes());
+        assertTrue(eventCaptor.getAllValues().get(1) instanceof RecipeImageSavedEvent);
+    }
+
+    @Test
+    public void testSaveSameImageAgainKeepsRenditions() throws Exception {
+        byte[] image = image(0x336699);
+        RecipeImage existing = new RecipeImage();
+        existing.setContentHash(ContentHash.of(image));
+        existing.getRenditions().put(64, new ImageRendition("small", "image/jpeg", 1L));
+
+        when(recipeImageRepository.findById(anyLong())).thenReturn(Optional.of(existing));
+        when(imageStore.contains(anyString())).thenReturn(true);
+
+        imageServiceImpl.saveImageFile(1L, new MockMultipartFile("imagefile", image));
+
+        assertEquals(1, existing.getRenditions().size());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    public void testSaveImageFileAlreadyInStore() throws Exception {
+        MultipartFile multipartFile = new MockMultipartFile(
+                "imagefile",
+                "testing.txt",
+                "image/jpeg",
+                image(0x996633));
+        RecipeImage existing = new RecipeImage();
+        existing.setId(1L);
+
+        when(recipeImageRepository.findById(anyLong())).thenReturn(Optional.of(existing));
+        when(imageStore.contains(anyString())).thenReturn(true);
+
+        imageServiceImpl.saveImageFile(1L, multipartFile);
+
+        verify(recipeImageRepository).save(existing);
+        verify(recipeRepository, never()).findById(anyLong());
+        verify(imageStore, never()).save(anyString(), anyLong(), any());
+        assertEquals(Long.valueOf(multipartFile.getSize()), existing.getContentLength());
+    }
+
+    @Test
+    public void testSameContentGivesSameHash() throws Exception {
+        RecipeImage first = new RecipeImage();
+        RecipeImage second = new RecipeImage();
+
+        when(recipeImageRepository.findById(1L)).thenReturn(Optional.of(first));
+        when(recipeImageRepository.findById(2L)).thenReturn(Optional.of(second));
+
+        imageServiceImpl.saveImageFile(1L, new MockMultipartFile("imagefile", image(0x336699)));
+        imageServiceImpl.saveImageFile(2L, new MockMultipartFile("imagefile", image(0x336699)));
+
+        assertEquals(first.getContentHash(), second.getContentHash());
+    }
+
+    @Test(expected = NotFoundException.class)
+    public void testSaveImageFileRecipeNotFound() throws Exception {
+        MultipartFile multipartFile = new MockMultipartFile("imagefile", image(0x336699));
+
+        when(recipeImageRepository.findById(anyLong())).thenReturn(Optional.empty());
+        when(recipeRepository.findById(anyLong())).thenReturn(Optional.empty());
+
+        imageServiceImpl.saveImageFile(1L, multipartFile);
+    }
+
+    @Test(expected = ImageTooLargeException.class)
+    public void testSaveImageFileTooLarge() throws Exception {
+        MultipartFile multipartFile = new MockMultipartFile("imagefile", new byte[(int) MAX_IMAGE_SIZE + 1]);
+
+        try {
+            imageServiceImpl.saveImageFile(1L, multipartFile);
+        } finally {
+            verify(recipeImageRepository, never()).save(any());
+        }
+    }
+
+    @Test
+    public void testWriteImageTooLargeForCache() throws Exception {
+        ImageContent content = new ImageContent(1L, IMAGE_HASH, IMAGE_HASH, "image/jpeg", CACHE_SIZE + 1, null, false);
+        WritableByteChannel channel = mock(WritableByteChannel.class);
+
+        imageServiceImpl.writeImage(content, 10, 20, channel);
+
+        verify(imageStore).transferTo(IMAGE_HASH, 10, 20, channel);
+        assertEquals(0, imageCache.getEntryCount());
+    }
+
+    @Test
+    public void testWriteImageFromCache() throws Exception {
+        byte[] image = "fake image content stream here".getBytes();
+        ImageContent content = new ImageContent(1L, IMAGE_HASH, IMAGE_HASH, "image/jpeg", (long) image.length, null, false);
+        doAnswer(invocation -> {
+            WritableByteChannel target = invocation.getArgument(1);
+            target.write(ByteBuffer.wrap(image));
+            return null;
+        }).when(imageStore).transferTo(eq(IMAGE_HASH), any(WritableByteChannel.class));
+
+        ByteArrayOutputStream first = new ByteArrayOutputStream();
+        imageServiceImpl.writeImage(content, 0, image.length, Channels.newChannel(first));
+        ByteArrayOutputStream second = new ByteArrayOutputStream();
+        imageServiceImpl.writeImage(content, 5, 5, Channels.newChannel(second));
+
+        assertEquals("fake image content stream here", first.toString());
+        assertEquals("image", second.toString());
+        verify(imageStore, times(1)).transferTo(eq(IMAGE_HASH), any(WritableByteChannel.class));
+        assertEquals(1, imageCache.getMisses());
+        assertEquals(1, imageCache.getHits());
+    }
+
+    @Test
+    public void testSaveImageFileEvictsCachedImages() throws Exception {
+        RecipeImage existing = new RecipeImage();
+        existing.setContentHash("old");
+        imageCache.put(1L, "old", ByteBuffer.wrap("old image".getBytes()));
+
+        when(recipeImageRepository.findById(anyLong())).thenReturn(Optional.of(existing));
+
+        imageServiceImpl.saveImageFile(1L, new MockMultipartFile("imagefile", image(0x996633)));
+
+        assertNull(imageCache.get(1L, "old"));
+    }
+
+    @Test
+    public void testLoadImageOriginal() throws Exception {
+        ImageContent original = new ImageContent(1L, IMAGE_HASH, "image/jpeg", 1000L, null);
+        when(recipeImageRepository.findContentByRecipeId(anyLong())).thenReturn(Optional.of(original));
+
+        assertSame(original, imageServiceImpl.loadImage(1L, null));
+
+        verify(recipeImageRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    public void testLoadImagePicksSmallestRenditionLargeEnough() throws Exception {
+        ImageContent rendition = new ImageContent(1L, IMAGE_HASH, "hash200", "image/jpeg", 200L, null, false);
+        when(recipeImageRepository.findRenditionContentByRecipeId(1L, 200)).thenReturn(Optional.of(rendition));
+
+        assertSame(rendition, imageServiceImpl.loadImage(1L, 100));
+    }
+
+    @Test
+    public void testLoadImageExactRenditionSize() throws Exception {
+        when(recipeImageRepository.findRenditionContentByRecipeId(anyLong(), anyInt())).thenReturn(Optional.empty());
+
+        imageServiceImpl.loadImage(1L, 64);
+
+        verify(recipeImageRepository).findRenditionContentByRecipeId(1L, 64);
+    }
+
+    @Test
+    public void testLoadImageLargerThanAllRenditions() throws Exception {
+        ImageContent original = new ImageContent(1L, IMAGE_HASH, "image/jpeg", 1000L, null);
+        when(recipeImageRepository.findContentByRecipeId(anyLong())).thenReturn(Optional.of(original));
+
+        assertSame(original, imageServiceImpl.loadImage(1L, 1000));
+
+        verify(recipeImageRepository, never()).findRenditionContentByRecipeId(anyLong(), anyInt());
+    }
+
+    @Test
+    public void testLoadImageWithoutImage() throws Exception {
+        when(recipeImageRepository.findContentByRecipeId(anyLong())).thenReturn(Optional.empty());
+
+        assertNull(imageServiceImpl.loadImage(1L));
+    }
+
+    // a single pixel png, small enough for the test size limit; different colours give different hashes
+    private static byte[] image(int rgb) throws IOException {
+        BufferedImage image = new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB);
+        image.setRGB(0, 0, rgb);
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", encoded);
+        return encoded.toByteArray();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,52 @@
+package guru.springframework.services;
+
+import org.junit.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class ImageTypesTest {
+
+    @Test
+    public void testRecognisesImages() throws Exception {
+        assertEquals("image/png", ImageTypes.of(new ByteArrayInputStream(image("png"))));
+        assertEquals("image/jpeg", ImageTypes.of(new ByteArrayInputStream(image("jpg"))));
+        assertEquals("image/gif", ImageTypes.of(new ByteArrayInputStream(image("gif"))));
+    }
+
+    @Test
+    public void testRecognisesWebp() throws Exception {
+        byte[] webp = "RIFF$\0\0\0WEBPVP8 ".getBytes(StandardCharsets.ISO_8859_1);
+
+        assertEquals("image/webp", ImageTypes.of(new ByteArrayInputStream(webp)));
+    }
+
+    @Test
+    public void testRejectsHtml() throws Exception {
+        byte[] html = "<html><script>alert(1)</script></html>".getBytes(StandardCharsets.UTF_8);
+
+        assertNull(ImageTypes.of(new ByteArrayInputStream(html)));
+    }
+
+    @Test
+    public void testRejectsImagesOfOtherTypes() throws Exception {
+        assertNull(ImageTypes.of(new ByteArrayInputStream(image("bmp"))));
+    }
+
+    @Test
+    public void testRejectsEmptyContent() throws Exception {
+        assertNull(ImageTypes.of(new ByteArrayInputStream(new byte[0])));
+    }
+
+    private static byte[] image(String format) throws Exception {
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(2, 2, BufferedImage.TYPE_INT_RGB), format, encoded);
+        return encoded.toByteArray();
+    }
+}
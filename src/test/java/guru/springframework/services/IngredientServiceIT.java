@@ -0,0 +1,92 @@
+package guru.springframework.services;
+
+import guru.springframework.commands.IngredientCommand;
+import guru.springframework.commands.UnitOfMeasureCommand;
+import guru.springframework.repositories.IngredientRepository;
+import guru.springframework.repositories.RecipeRepository;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Adds ingredients through the service, each call commits its own transaction so the inserts are flushed.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class IngredientServiceIT {
+
+    @Autowired
+    IngredientService ingredientService;
+
+    @Autowired
+    UnitOfMeasureService unitOfMeasureService;
+
+    @Autowired
+    IngredientRepository ingredientRepository;
+
+    @Autowired
+    RecipeRepository recipeRepository;
+
+    Long recipeId;
+    Long version;
+    List<Long> created = new ArrayList<>();
+
+    @Before
+    public void setUp() throws Exception {
+        recipeId = recipeRepository.findSummariesByIdGreaterThan(0L, PageRequest.of(0, 1)).get(0).getId();
+        version = recipeRepository.findVersionById(recipeId).get();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        created.forEach(id -> ingredientService.deleteIngredientById(recipeId, id));
+    }
+
+    @Test
+    public void saveNewIngredient() throws Exception {
+        IngredientCommand saved = ingredientService.saveIngredientCommand(newIngredient("saffron"));
+        created.add(saved.getId());
+
+        assertNotNull(saved.getId());
+        assertEquals("saffron", ingredientService.findByRecipeIdAndIngredientId(recipeId, saved.getId())
+                .getDescription());
+        assertTrue(recipeRepository.findVersionById(recipeId).get() > version);
+    }
+
+    @Test
+    public void saveNewIngredients() throws Exception {
+        List<IngredientCommand> saved = ingredientService.saveIngredientCommands(recipeId,
+                Collections.singletonList(newIngredient("cardamom")), Collections.emptySet());
+        saved.forEach(ingredient -> created.add(ingredient.getId()));
+
+        assertEquals(1, saved.size());
+        assertEquals("cardamom", ingredientService.findByRecipeIdAndIngredientId(recipeId, saved.get(0).getId())
+                .getDescription());
+        assertTrue(recipeRepository.findVersionById(recipeId).get() > version);
+    }
+
+    private IngredientCommand newIngredient(String description) {
+        IngredientCommand command = new IngredientCommand();
+        command.setRecipeId(recipeId);
+        command.setDescription(description);
+        command.setAmount(BigDecimal.ONE);
+        UnitOfMeasureCommand uom = new UnitOfMeasureCommand();
+        uom.setId(unitOfMeasureService.listAllUoms().get(0).getId());
+        command.setUom(uom);
+        return command;
+    }
+}
@@ -1,22 +1,33 @@
 package guru.springframework.services;
 
 import guru.springframework.commands.IngredientCommand;
+import guru.springframework.commands.UnitOfMeasureCommand;
 import guru.springframework.converters.IngredientCommandToIngredient;
 import guru.springframework.converters.IngredientToIngredientCommand;
+import guru.springframework.converters.IngredientToIngredientDetails;
 import guru.springframework.converters.UnitOfMeasureCommandToUnitOfMeasure;
 import guru.springframework.converters.UnitOfMeasureToUnitOfMeasureCommand;
 import guru.springframework.domain.Ingredient;
+import guru.springframework.domain.IngredientDetails;
 import guru.springframework.domain.Recipe;
+import guru.springframework.domain.UnitOfMeasure;
+import guru.springframework.exceptions.NotFoundException;
+import guru.springframework.repositories.IngredientRepository;
 import guru.springframework.repositories.RecipeRepository;
 import guru.springframework.repositories.UnitOfMeasureRepository;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.*;
 
@@ -28,9 +39,15 @@ public class IngredientServiceImplTest {
     @Mock
     RecipeRepository recipeRepository;
 
+    @Mock
+    IngredientRepository ingredientRepository;
+
     @Mock
     UnitOfMeasureRepository unitOfMeasureRepository;
 
+    @Mock
+    ApplicationEventPublisher eventPublisher;
+
     IngredientService ingredientService;
 
     //init converters
@@ -44,7 +61,9 @@ public class IngredientServiceImplTest {
         MockitoAnnotations.initMocks(this);
 
         ingredientService = new IngredientServiceImpl(ingredientToIngredientCommand, ingredientCommandToIngredient,
-                recipeRepository, unitOfMeasureRepository);
+                new IngredientToIngredientDetails(),
+                recipeRepository, ingredientRepository,
+                new UnitOfMeasureCatalog(unitOfMeasureRepository, new UnitOfMeasureToUnitOfMeasureCommand()), eventPublisher);
     }
 
     @Test
@@ -57,21 +76,11 @@ public class IngredientServiceImplTest {
         Recipe recipe = new Recipe();
         recipe.setId(1L);
 
-        Ingredient ingredient1 = new Ingredient();
-        ingredient1.setId(1L);
-
-        Ingredient ingredient2 = new Ingredient();
-        ingredient2.setId(1L);
-
-        Ingredient ingredient3 = new Ingredient();
-        ingredient3.setId(3L);
-
-        recipe.addIngredient(ingredient1);
-        recipe.addIngredient(ingredient2);
-        recipe.addIngredient(ingredient3);
-        Optional<Recipe> recipeOptional = Optional.of(recipe);
+        Ingredient ingredient = new Ingredient();
+        ingredient.setId(3L);
+        ingredient.setRecipe(recipe);
 
-        when(recipeRepository.findById(anyLong())).thenReturn(recipeOptional);
+        when(ingredientRepository.findByIdAndRecipeId(3L, 1L)).thenReturn(Optional.of(ingredient));
 
         //when
         IngredientCommand ingredientCommand = ingredientService.findByRecipeIdAndIngredientId(1L, 3L);
@@ -79,9 +88,48 @@ public class IngredientServiceImplTest {
         //then
         assertEquals(Long.valueOf(3L), ingredientCommand.getId());
         assertEquals(Long.valueOf(1L), ingredientCommand.getRecipeId());
-        verify(recipeRepository, times(1)).findById(anyLong());
+        verify(ingredientRepository, times(1)).findByIdAndRecipeId(anyLong(), anyLong());
+        verify(recipeRepository, never()).findById(anyLong());
+    }
+
+    @Test(expected = NotFoundException.class)
+    public void findByRecipeIdAndIngredientIdNotFound() throws Exception {
+        when(ingredientRepository.findByIdAndRecipeId(anyLong(), anyLong())).thenReturn(Optional.empty());
+
+        ingredientService.findByRecipeIdAndIngredientId(1L, 3L);
+    }
+
+
+    @Test
+    public void findDetailsByRecipeId() throws Exception {
+        UnitOfMeasure uom = new UnitOfMeasure();
+        uom.setDescription("Cup");
+        Recipe recipe = new Recipe();
+        recipe.setId(1L);
+        Ingredient second = new Ingredient();
+        second.setId(5L);
+        second.setUom(uom);
+        Ingredient first = new Ingredient();
+        first.setId(3L);
+        recipe.addIngredient(second);
+        recipe.addIngredient(first);
+
+        when(recipeRepository.findForIngredientsById(1L)).thenReturn(Optional.of(recipe));
+
+        List<IngredientDetails> details = ingredientService.findDetailsByRecipeId(1L);
+
+        assertEquals(2, details.size());
+        assertEquals(Long.valueOf(3L), details.get(0).getId());
+        assertEquals("Cup", details.get(1).getUomDescription());
+        assertEquals(Long.valueOf(1L), details.get(1).getRecipeId());
     }
 
+    @Test(expected = NotFoundException.class)
+    public void findDetailsByRecipeIdNotFound() throws Exception {
+        when(recipeRepository.findForIngredientsById(anyLong())).thenReturn(Optional.empty());
+
+        ingredientService.findDetailsByRecipeId(1L);
+    }
 
     @Test
     public void testSaveRecipeCommand() throws Exception {
@@ -89,23 +137,142 @@ public class IngredientServiceImplTest {
         IngredientCommand command = new IngredientCommand();
         command.setId(3L);
         command.setRecipeId(2L);
+        command.setDescription("updated");
+        command.setUom(new UnitOfMeasureCommand());
+        command.getUom().setId(4L);
 
-        Optional<Recipe> recipeOptional = Optional.of(new Recipe());
-
-        Recipe savedRecipe = new Recipe();
-        savedRecipe.addIngredient(new Ingredient());
-        savedRecipe.getIngredients().iterator().next().setId(3L);
+        Recipe recipe = new Recipe();
+        recipe.setId(2L);
+        Ingredient ingredient = new Ingredient();
+        ingredient.setId(3L);
+        ingredient.setRecipe(recipe);
+        UnitOfMeasure uom = new UnitOfMeasure();
+        uom.setId(4L);
 
-        when(recipeRepository.findById(anyLong())).thenReturn(recipeOptional);
-        when(recipeRepository.save(any())).thenReturn(savedRecipe);
+        when(recipeRepository.findAndIncrementVersionById(2L)).thenReturn(Optional.of(recipe));
+        when(ingredientRepository.findByIdAndRecipeId(3L, 2L)).thenReturn(Optional.of(ingredient));
+        when(unitOfMeasureRepository.findAll()).thenReturn(Collections.singletonList(uom));
+        when(ingredientRepository.save(any())).then(invocation -> invocation.getArgument(0));
 
         //when
         IngredientCommand savedCommand = ingredientService.saveIngredientCommand(command);
 
         //then
         assertEquals(Long.valueOf(3L), savedCommand.getId());
-        verify(recipeRepository, times(1)).findById(anyLong());
-        verify(recipeRepository, times(1)).save(any(Recipe.class));
+        assertEquals("updated", ingredient.getDescription());
+        assertSame(uom, ingredient.getUom());
+        verify(ingredientRepository, times(1)).save(ingredient);
+        verify(recipeRepository, never()).findById(anyLong());
+        verify(recipeRepository, never()).save(any());
+        verify(eventPublisher).publishEvent(any(RecipeChangedEvent.class));
+    }
+
+    @Test
+    public void testSaveNewIngredientCommand() throws Exception {
+        //given
+        IngredientCommand command = new IngredientCommand();
+        command.setRecipeId(2L);
+        command.setDescription("new");
+
+        when(recipeRepository.findAndIncrementVersionById(2L)).thenReturn(Optional.of(recipe(2L)));
+        when(ingredientRepository.save(any())).then(invocation -> {
+            Ingredient ingredient = invocation.getArgument(0);
+            ingredient.setId(5L);
+            return ingredient;
+        });
+
+        //when
+        IngredientCommand savedCommand = ingredientService.saveIngredientCommand(command);
+
+        //then
+        assertEquals(Long.valueOf(5L), savedCommand.getId());
+        assertEquals(Long.valueOf(2L), savedCommand.getRecipeId());
+        assertEquals("new", savedCommand.getDescription());
+        verify(recipeRepository, never()).findById(anyLong());
+        verify(recipeRepository, never()).save(any());
+    }
+
+    @Test(expected = NotFoundException.class)
+    public void testSaveNewIngredientCommandRecipeNotFound() throws Exception {
+        IngredientCommand command = new IngredientCommand();
+        command.setRecipeId(2L);
+
+        when(recipeRepository.findAndIncrementVersionById(anyLong())).thenReturn(Optional.empty());
+
+        ingredientService.saveIngredientCommand(command);
+    }
+
+    @Test(expected = NotFoundException.class)
+    public void testSaveIngredientCommandIngredientNotFound() throws Exception {
+        IngredientCommand command = new IngredientCommand();
+        command.setId(3L);
+        command.setRecipeId(2L);
+
+        when(recipeRepository.findAndIncrementVersionById(2L)).thenReturn(Optional.of(recipe(2L)));
+        when(ingredientRepository.findByIdAndRecipeId(anyLong(), anyLong())).thenReturn(Optional.empty());
+
+        ingredientService.saveIngredientCommand(command);
+    }
+
+    @Test
+    public void testSaveIngredientCommands() throws Exception {
+        //given
+        Ingredient salt = new Ingredient();
+        salt.setId(3L);
+        Ingredient pepper = new Ingredient();
+        pepper.setId(4L);
+        UnitOfMeasure uom = new UnitOfMeasure();
+        uom.setId(7L);
+
+        IngredientCommand update = new IngredientCommand();
+        update.setId(3L);
+        update.setDescription("sea salt");
+        update.setUom(new UnitOfMeasureCommand());
+        update.getUom().setId(7L);
+        IngredientCommand insert = new IngredientCommand();
+        insert.setDescription("sugar");
+
+        when(recipeRepository.findAndIncrementVersionById(2L)).thenReturn(Optional.of(recipe(2L)));
+        when(ingredientRepository.findAllByRecipeId(2L)).thenReturn(Arrays.asList(salt, pepper));
+        when(unitOfMeasureRepository.findAll()).thenReturn(Collections.singletonList(uom));
+        when(ingredientRepository.saveAll(any())).then(invocation -> invocation.getArgument(0));
+
+        //when
+        List<IngredientCommand> saved = ingredientService.saveIngredientCommands(2L,
+                Arrays.asList(update, insert), Collections.singleton(4L));
+
+        //then
+        assertEquals(2, saved.size());
+        assertEquals("sea salt", salt.getDescription());
+        assertSame(uom, salt.getUom());
+        assertEquals("sugar", saved.get(1).getDescription());
+        assertEquals(Long.valueOf(2L), saved.get(1).getRecipeId());
+        verify(ingredientRepository).deleteAll(Collections.singletonList(pepper));
+        verify(ingredientRepository, never()).findByIdAndRecipeId(anyLong(), anyLong());
+        verify(unitOfMeasureRepository, times(1)).findAll();
+    }
+
+    @Test(expected = NotFoundException.class)
+    public void testSaveIngredientCommandsIngredientOfOtherRecipe() throws Exception {
+        IngredientCommand update = new IngredientCommand();
+        update.setId(9L);
+
+        when(recipeRepository.findAndIncrementVersionById(2L)).thenReturn(Optional.of(recipe(2L)));
+        when(ingredientRepository.findAllByRecipeId(2L)).thenReturn(Collections.emptyList());
+
+        ingredientService.saveIngredientCommands(2L, Collections.singletonList(update), Collections.emptySet());
+    }
+
+    @Test(expected = NotFoundException.class)
+    public void testSaveIngredientCommandsUomNotFound() throws Exception {
+        IngredientCommand insert = new IngredientCommand();
+        insert.setUom(new UnitOfMeasureCommand());
+        insert.getUom().setId(7L);
+
+        when(recipeRepository.findAndIncrementVersionById(2L)).thenReturn(Optional.of(recipe(2L)));
+        when(unitOfMeasureRepository.findAll()).thenReturn(Collections.emptyList());
+
+        ingredientService.saveIngredientCommands(2L, Collections.singletonList(insert), Collections.emptySet());
     }
 
     @Test
@@ -117,11 +284,17 @@ public class IngredientServiceImplTest {
         ingredient.setRecipe(recipe);
         Optional<Recipe> recipeOptional = Optional.of(recipe);
 
-        when(recipeRepository.findById(anyLong())).thenReturn(recipeOptional);
+        when(recipeRepository.findAndIncrementVersionById(anyLong())).thenReturn(recipeOptional);
 
         ingredientService.deleteIngredientById(1L, 3L);
 
-        verify(recipeRepository).findById(anyLong());
+        verify(recipeRepository).findAndIncrementVersionById(anyLong());
         verify(recipeRepository).save(any(Recipe.class));
     }
-}
\ No newline at end of file
+
+    private Recipe recipe(Long id) {
+        Recipe recipe = new Recipe();
+        recipe.setId(id);
+        return recipe;
+    }
+}
@@ -0,0 +1,68 @@
+package guru.springframework.services;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MissingRecipeCacheTest {
+
+    MissingRecipeCache missingRecipeCache;
+
+    @Before
+    public void setUp() throws Exception {
+        missingRecipeCache = new MissingRecipeCache(60, 2);
+    }
+
+    @Test
+    public void testMissing() throws Exception {
+        missingRecipeCache.add(1L, missingRecipeCache.generation());
+
+        assertTrue(missingRecipeCache.isMissing(1L));
+        assertFalse(missingRecipeCache.isMissing(2L));
+        assertEquals(1, missingRecipeCache.getLookupsSaved());
+    }
+
+    @Test
+    public void testDropsOldestWhenFull() throws Exception {
+        missingRecipeCache.add(1L, missingRecipeCache.generation());
+        missingRecipeCache.add(2L, missingRecipeCache.generation());
+        missingRecipeCache.add(3L, missingRecipeCache.generation());
+
+        assertFalse(missingRecipeCache.isMissing(1L));
+        assertTrue(missingRecipeCache.isMissing(2L));
+        assertTrue(missingRecipeCache.isMissing(3L));
+        assertEquals(1, missingRecipeCache.getEvictions());
+    }
+
+    @Test
+    public void testDisabledWithoutTtl() throws Exception {
+        missingRecipeCache = new MissingRecipeCache(0, 2);
+
+        missingRecipeCache.add(1L, missingRecipeCache.generation());
+
+        assertFalse(missingRecipeCache.isMissing(1L));
+        assertEquals(0, missingRecipeCache.getEntryCount());
+    }
+
+    @Test
+    public void testSavedRecipeIsNoLongerMissing() throws Exception {
+        missingRecipeCache.add(1L, missingRecipeCache.generation());
+
+        missingRecipeCache.onRecipeChanged(new RecipeChangedEvent(1L));
+
+        assertFalse(missingRecipeCache.isMissing(1L));
+    }
+
+    @Test
+    public void testLookupDuringSaveIsNotRecorded() throws Exception {
+        long generation = missingRecipeCache.generation();
+        missingRecipeCache.remove(1L);
+
+        missingRecipeCache.add(1L, generation);
+
+        assertFalse(missingRecipeCache.isMissing(1L));
+    }
+}
@@ -0,0 +1,111 @@
+package guru.springframework.services;
+
+import guru.springframework.domain.RecipeDetails;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class RecipeDetailsCacheTest {
+
+    RecipeDetailsCache recipeDetailsCache;
+
+    @Before
+    public void setUp() throws Exception {
+        recipeDetailsCache = new RecipeDetailsCache(true, 2, 300);
+    }
+
+    @Test
+    public void testHitAndMiss() throws Exception {
+        RecipeDetails details = details(1L, 0L);
+        recipeDetailsCache.put(details, recipeDetailsCache.generation());
+
+        assertSame(details, recipeDetailsCache.get(1L));
+        assertNull(recipeDetailsCache.get(2L));
+
+        assertEquals(1, recipeDetailsCache.getHits());
+        assertEquals(1, recipeDetailsCache.getMisses());
+        assertEquals(0.5, recipeDetailsCache.getHitRate(), 0.0);
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsed() throws Exception {
+        recipeDetailsCache.put(details(1L, 0L), recipeDetailsCache.generation());
+        recipeDetailsCache.put(details(2L, 0L), recipeDetailsCache.generation());
+        recipeDetailsCache.get(1L);
+
+        recipeDetailsCache.put(details(3L, 0L), recipeDetailsCache.generation());
+
+        assertNotNull(recipeDetailsCache.get(1L));
+        assertNull(recipeDetailsCache.get(2L));
+        assertNotNull(recipeDetailsCache.get(3L));
+        assertEquals(1, recipeDetailsCache.getEvictions());
+    }
+
+    @Test
+    public void testInvalidate() throws Exception {
+        recipeDetailsCache.put(details(1L, 0L), recipeDetailsCache.generation());
+
+        recipeDetailsCache.onRecipeChanged(new RecipeChangedEvent(1L));
+
+        assertNull(recipeDetailsCache.get(1L));
+        assertEquals(1, recipeDetailsCache.getInvalidations());
+    }
+
+    @Test
+    public void testLoadDuringChangeIsNotCached() throws Exception {
+        long generation = recipeDetailsCache.generation();
+        recipeDetailsCache.invalidate(1L);
+
+        recipeDetailsCache.put(details(1L, 0L), generation);
+
+        assertEquals(0, recipeDetailsCache.getEntryCount());
+    }
+
+    @Test
+    public void testOlderVersionDoesNotReplaceNewer() throws Exception {
+        RecipeDetails newer = details(1L, 2L);
+        recipeDetailsCache.put(newer, recipeDetailsCache.generation());
+
+        recipeDetailsCache.put(details(1L, 1L), recipeDetailsCache.generation());
+
+        assertSame(newer, recipeDetailsCache.get(1L));
+    }
+
+    @Test
+    public void testExpiresAfterMaxAge() throws Exception {
+        AtomicLong now = new AtomicLong();
+        recipeDetailsCache = new RecipeDetailsCache(true, 2, 300, now::get);
+        recipeDetailsCache.put(details(1L, 0L), recipeDetailsCache.generation());
+
+        now.set(TimeUnit.SECONDS.toNanos(299));
+        assertNotNull(recipeDetailsCache.get(1L));
+
+        now.set(TimeUnit.SECONDS.toNanos(300));
+        assertNull(recipeDetailsCache.get(1L));
+        assertEquals(1, recipeDetailsCache.getExpirations());
+        assertEquals(0, recipeDetailsCache.getEntryCount());
+    }
+
+    @Test
+    public void testDisabled() throws Exception {
+        recipeDetailsCache = new RecipeDetailsCache(false, 2, 300);
+
+        recipeDetailsCache.put(details(1L, 0L), recipeDetailsCache.generation());
+
+        assertNull(recipeDetailsCache.get(1L));
+        assertEquals(0, recipeDetailsCache.getEntryCount());
+    }
+
+    private RecipeDetails details(Long id, Long version) {
+        return new RecipeDetails(id, version, "description", 10, 20, 4, "source", "url", "directions", null, "notes",
+                Collections.emptyList(), Collections.emptyList());
+    }
+}
@@ -9,10 +9,12 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.transaction.annotation.Transactional;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
 
 
 /**
@@ -54,4 +56,46 @@ public class RecipeServiceIT {
         assertEquals(testRecipe.getCategories().size(), savedRecipeCommand.getCategories().size());
         assertEquals(testRecipe.getIngredients().size(), savedRecipeCommand.getIngredients().size());
     }
+
+    @Test
+    public void testSaveOfCommandWithIngredients() throws Exception {
+        // not in a test transaction, so the save is flushed and committed
+        Long recipeId = recipeRepository.findAll().iterator().next().getId();
+        RecipeCommand command = recipeService.findCommandById(recipeId);
+        String description = command.getDescription();
+
+        command.setDescription(NEW_DESCRIPTION);
+        RecipeCommand savedCommand = recipeService.saveRecipeCommand(command);
+
+        assertEquals(NEW_DESCRIPTION, recipeService.findCommandById(recipeId).getDescription());
+        assertEquals(command.getIngredients().size(), savedCommand.getIngredients().size());
+
+        RecipeCommand restoreCommand = recipeService.findCommandById(recipeId);
+        restoreCommand.setDescription(description);
+        recipeService.saveRecipeCommand(restoreCommand);
+    }
+
+    @Test
+    public void testSaveOfStaleCommand() throws Exception {
+        Long recipeId = recipeRepository.findAll().iterator().next().getId();
+        RecipeCommand staleCommand = recipeService.findCommandById(recipeId);
+
+        // someone else saves the recipe after the form was loaded
+        RecipeCommand changedCommand = recipeService.findCommandById(recipeId);
+        String description = changedCommand.getDescription();
+        changedCommand.setDescription(NEW_DESCRIPTION);
+        recipeService.saveRecipeCommand(changedCommand);
+
+        staleCommand.setDescription("Stale Description");
+        try {
+            recipeService.saveRecipeCommand(staleCommand);
+            fail("expected the stale save to fail");
+        } catch (ObjectOptimisticLockingFailureException expected) {
+        }
+        assertEquals(NEW_DESCRIPTION, recipeService.findCommandById(recipeId).getDescription());
+
+        RecipeCommand restoreCommand = recipeService.findCommandById(recipeId);
+        restoreCommand.setDescription(description);
+        recipeService.saveRecipeCommand(restoreCommand);
+    }
 }
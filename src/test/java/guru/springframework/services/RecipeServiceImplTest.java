@@ -2,26 +2,40 @@ package guru.springframework.services;
 
 
 import guru.springframework.commands.RecipeCommand;
+import guru.springframework.converters.IngredientToIngredientDetails;
 import guru.springframework.converters.RecipeCommandToRecipe;
 import guru.springframework.converters.RecipeToRecipeCommand;
+import guru.springframework.converters.RecipeToRecipeDetails;
+import guru.springframework.domain.Ingredient;
 import guru.springframework.domain.Recipe;
+import guru.springframework.domain.RecipeDetails;
+import guru.springframework.domain.RecipeSummary;
+import guru.springframework.exceptions.NotFoundException;
 import guru.springframework.repositories.RecipeRepository;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
 
-import java.util.HashSet;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
-import java.util.Set;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
 import static org.mockito.Mockito.*;
 
 public class RecipeServiceImplTest {
 
     RecipeServiceImpl recipeService;
+    MissingRecipeCache missingRecipeCache;
 
     @Mock
     RecipeRepository recipeRepository;
@@ -32,45 +46,151 @@ public class RecipeServiceImplTest {
     @Mock
     RecipeCommandToRecipe recipeCommandToRecipe;
 
+    @Mock
+    ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    PlatformTransactionManager transactionManager;
+
     @Before
     public void setUp() throws Exception {
         MockitoAnnotations.initMocks(this);
+        missingRecipeCache = new MissingRecipeCache(60, 10);
 
-        recipeService = new RecipeServiceImpl(recipeRepository, recipeCommandToRecipe, recipeToRecipeCommand);
+        recipeService = new RecipeServiceImpl(recipeRepository, recipeCommandToRecipe, recipeToRecipeCommand,
+                new RecipeToRecipeDetails(new IngredientToIngredientDetails()), new RecipeDetailsCache(true, 10, 300),
+                missingRecipeCache, new RecipeCatalogVersion(), eventPublisher, transactionManager, new CoalescedLoads());
     }
 
     @Test
-    public void testGetRecipeById() throws Exception {
+    public void testGetRecipeDetailsById() throws Exception {
         Recipe recipe = new Recipe();
         recipe.setId(1L);
-        Optional<Recipe> recipeOptional = Optional.of(recipe);
+        Ingredient ingredient = new Ingredient();
+        ingredient.setId(3L);
+        recipe.addIngredient(ingredient);
+        when(recipeRepository.findDetailedById(anyLong())).thenReturn(Optional.of(recipe));
+
+        RecipeDetails details = recipeService.findDetailsById(1L);
+
+        assertEquals(Long.valueOf(1L), details.getId());
+        assertEquals(1, details.getIngredients().size());
+        assertEquals(Long.valueOf(1L), details.getIngredients().get(0).getRecipeId());
+    }
+
+    @Test
+    public void testGetRecipeDetailsByIdCached() throws Exception {
+        Recipe recipe = new Recipe();
+        recipe.setId(1L);
+        when(recipeRepository.findDetailedById(anyLong())).thenReturn(Optional.of(recipe));
+
+        RecipeDetails first = recipeService.findDetailsById(1L);
+        RecipeDetails second = recipeService.findDetailsById(1L);
+
+        assertSame(first, second);
+        verify(recipeRepository, times(1)).findDetailedById(1L);
+    }
+
+    @Test
+    public void testGetRecipeDetailsByIdAfterChange() throws Exception {
+        RecipeDetailsCache recipeDetailsCache = new RecipeDetailsCache(true, 10, 300);
+        recipeService = new RecipeServiceImpl(recipeRepository, recipeCommandToRecipe, recipeToRecipeCommand,
+                new RecipeToRecipeDetails(new IngredientToIngredientDetails()), recipeDetailsCache,
+                missingRecipeCache, new RecipeCatalogVersion(), eventPublisher, transactionManager, new CoalescedLoads());
+        Recipe recipe = new Recipe();
+        recipe.setId(1L);
+        when(recipeRepository.findDetailedById(anyLong())).thenReturn(Optional.of(recipe));
+
+        recipeService.findDetailsById(1L);
+        recipeDetailsCache.onRecipeChanged(new RecipeChangedEvent(1L));
+        recipeService.findDetailsById(1L);
+
+        verify(recipeRepository, times(2)).findDetailedById(1L);
+    }
+
+    @Test(expected = NotFoundException.class)
+    public void testGetRecipeDetailsByIdNotFound() throws Exception {
+        when(recipeRepository.findDetailedById(anyLong())).thenReturn(Optional.empty());
+
+        recipeService.findDetailsById(1L);
+    }
+
+    @Test
+    public void testMissingRecipeIsNotLookedUpAgain() throws Exception {
+        when(recipeRepository.findDetailedById(anyLong())).thenReturn(Optional.empty());
+
+        for (int i = 0; i < 3; i++) {
+            try {
+                recipeService.findDetailsById(1L);
+                fail("expected NotFoundException");
+            } catch (NotFoundException expected) {
+            }
+        }
+
+        verify(recipeRepository, times(1)).findDetailedById(1L);
+        assertEquals(2, missingRecipeCache.getLookupsSaved());
+    }
+
+    @Test
+    public void testSavedRecipeIsNoLongerMissing() throws Exception {
+        Recipe recipe = new Recipe();
+        recipe.setId(1L);
+        when(recipeRepository.findDetailedById(anyLong())).thenReturn(Optional.empty(), Optional.of(recipe));
 
-        when(recipeRepository.findById(anyLong())).thenReturn(recipeOptional);
+        try {
+            recipeService.findDetailsById(1L);
+            fail("expected NotFoundException");
+        } catch (NotFoundException expected) {
+        }
+        missingRecipeCache.onRecipeChanged(new RecipeChangedEvent(1L));
 
-        Recipe recipeReturned = recipeService.findById(1L);
+        assertEquals(Long.valueOf(1L), recipeService.findDetailsById(1L).getId());
+    }
+
+    @Test
+    public void testGetVersionById() throws Exception {
+        when(recipeRepository.findVersionById(anyLong())).thenReturn(Optional.of(3L));
+
+        assertEquals(Long.valueOf(3L), recipeService.findVersionById(1L));
+        verify(recipeRepository, never()).findDetailedById(anyLong());
+    }
+
+    @Test
+    public void testGetVersionByIdCached() throws Exception {
+        Recipe recipe = new Recipe();
+        recipe.setId(1L);
+        recipe.setVersion(2L);
+        when(recipeRepository.findDetailedById(anyLong())).thenReturn(Optional.of(recipe));
+        recipeService.findDetailsById(1L);
+
+        assertEquals(Long.valueOf(2L), recipeService.findVersionById(1L));
+        verify(recipeRepository, never()).findVersionById(anyLong());
+    }
+
+    @Test(expected = NotFoundException.class)
+    public void testGetVersionByIdNotFound() throws Exception {
+        when(recipeRepository.findVersionById(anyLong())).thenReturn(Optional.empty());
+
+        recipeService.findVersionById(1L);
+    }
+
+    @Test
+    public void testGetRecipesPage() throws Exception {
+        when(recipeRepository.findSummariesByIdGreaterThan(anyLong(), any(Pageable.class)))
+                .thenReturn(Collections.singletonList(new RecipeSummary(5L, "Tacos")));
 
-        assertNotNull("Returned null recipe", recipeReturned);
-        verify(recipeRepository).findById(anyLong());
+        List<RecipeSummary> recipes = recipeService.getRecipeSummaries(4L, 10);
+
+        assertEquals(1, recipes.size());
+        verify(recipeRepository).findSummariesByIdGreaterThan(4L, PageRequest.of(0, 10));
         verify(recipeRepository, never()).findAll();
     }
 
     @Test
-    public void testGetAllRecipes() throws Exception {
-        Recipe recipe1 = new Recipe();
-        recipe1.setId(1L);
-        Recipe recipe2 = new Recipe();
-        recipe2.setId(2L);
-        HashSet<Recipe> recipesData = new HashSet();
-        recipesData.add(recipe1);
-        recipesData.add(recipe2);
-
-        when(recipeService.getRecipes()).thenReturn(recipesData);
-
-        Set<Recipe> recipes = recipeService.getRecipes();
-
-        assertEquals(recipes.size(), 2);
-        verify(recipeRepository).findAll();
-        verify(recipeRepository, never()).findById(anyLong());
+    public void testGetRecipesFirstPage() throws Exception {
+        recipeService.getRecipeSummaries(null, 10);
+
+        verify(recipeRepository).findSummariesByIdGreaterThan(0L, PageRequest.of(0, 10));
     }
 
     @Test
@@ -79,7 +199,7 @@ public class RecipeServiceImplTest {
         recipe.setId(1L);
         Optional<Recipe> recipeOptional = Optional.of(recipe);
 
-        when(recipeRepository.findById(anyLong())).thenReturn(recipeOptional);
+        when(recipeRepository.findDetailedById(anyLong())).thenReturn(recipeOptional);
 
         RecipeCommand recipeCommand = new RecipeCommand();
         recipeCommand.setId(1L);
@@ -89,25 +209,10 @@ public class RecipeServiceImplTest {
         RecipeCommand commandById = recipeService.findCommandById(1L);
 
         assertNotNull("Returned null recipe", commandById);
-        verify(recipeRepository, times(1)).findById(anyLong());
+        verify(recipeRepository, times(1)).findDetailedById(anyLong());
         verify(recipeRepository, never()).findAll();
     }
 
-    @Test
-    public void getRecipesTest() throws Exception {
-        Recipe recipe = new Recipe();
-        HashSet receipesData = new HashSet();
-        receipesData.add(recipe);
-
-        when(recipeService.getRecipes()).thenReturn(receipesData);
-
-        Set<Recipe> recipes = recipeService.getRecipes();
-
-        assertEquals(recipes.size(), 1);
-        verify(recipeRepository, times(1)).findAll();
-        verify(recipeRepository, never()).findById(anyLong());
-    }
-
     @Test
     public void testDeleteById() throws Exception {
         // given
@@ -118,5 +223,20 @@ public class RecipeServiceImplTest {
 
         // then
         verify(recipeRepository, times(1)).deleteById(anyLong());
+        verify(eventPublisher).publishEvent(any(RecipeChangedEvent.class));
+    }
+
+    @Test
+    public void testSaveRecipeCommand() throws Exception {
+        Recipe recipe = new Recipe();
+        recipe.setId(1L);
+        when(recipeCommandToRecipe.convert(any())).thenReturn(recipe);
+        when(recipeRepository.save(any())).thenReturn(recipe);
+
+        recipeService.saveRecipeCommand(new RecipeCommand());
+
+        ArgumentCaptor<RecipeChangedEvent> event = ArgumentCaptor.forClass(RecipeChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals(Long.valueOf(1L), event.getValue().getRecipeId());
     }
 }
\ No newline at end of file
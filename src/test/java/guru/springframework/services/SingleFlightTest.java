@@ -0,0 +1,115 @@
+package guru.springframework.services;
+
+import guru.springframework.exceptions.NotFoundException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SingleFlightTest {
+
+    static final int CALLERS = 8;
+
+    SingleFlight<Long, String> singleFlight;
+    ExecutorService executor;
+
+    @Before
+    public void setUp() throws Exception {
+        singleFlight = new SingleFlight<>();
+        executor = Executors.newFixedThreadPool(CALLERS);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testConcurrentCallersShareOneLoad() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(executor.submit(() -> singleFlight.load(1L, () -> {
+                loads.incrementAndGet();
+                release.await();
+                return "recipe";
+            })));
+        }
+        waitForWaiters(CALLERS - 1);
+        release.countDown();
+
+        for (Future<String> result : results) {
+            assertEquals("recipe", result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void testFailureIsSharedAndNotKept() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            results.add(executor.submit(() -> singleFlight.<RuntimeException>load(1L, () -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                throw new NotFoundException("Recipe not found");
+            })));
+        }
+        waitForWaiters(1);
+        release.countDown();
+
+        for (Future<String> result : results) {
+            try {
+                result.get(5, TimeUnit.SECONDS);
+                fail("expected the load to fail");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof NotFoundException);
+            }
+        }
+
+        // the next call loads again
+        assertEquals("recipe", singleFlight.load(1L, () -> "recipe"));
+    }
+
+    @Test(expected = IOException.class)
+    public void testCheckedExceptionIsRethrown() throws Exception {
+        singleFlight.load(1L, () -> {
+            throw new IOException("store unavailable");
+        });
+    }
+
+    @Test
+    public void testDifferentKeysLoadSeparately() throws Exception {
+        assertEquals("one", singleFlight.load(1L, () -> "one"));
+        assertEquals("two", singleFlight.load(2L, () -> "two"));
+        assertEquals(0, singleFlight.getCoalesced());
+    }
+
+    private void waitForWaiters(int waiters) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (singleFlight.getCoalesced() < waiters && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(waiters, singleFlight.getCoalesced());
+    }
+}
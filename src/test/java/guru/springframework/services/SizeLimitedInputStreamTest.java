@@ -0,0 +1,26 @@
+package guru.springframework.services;
+
+import guru.springframework.exceptions.ImageTooLargeException;
+import org.junit.Test;
+import org.springframework.util.StreamUtils;
+
+import java.io.ByteArrayInputStream;
+
+import static org.junit.Assert.assertEquals;
+
+public class SizeLimitedInputStreamTest {
+
+    @Test
+    public void readsUpToLimit() throws Exception {
+        SizeLimitedInputStream inputStream = new SizeLimitedInputStream(new ByteArrayInputStream(new byte[10]), 10);
+
+        assertEquals(10, StreamUtils.copyToByteArray(inputStream).length);
+    }
+
+    @Test(expected = ImageTooLargeException.class)
+    public void failsWhenLimitIsExceeded() throws Exception {
+        SizeLimitedInputStream inputStream = new SizeLimitedInputStream(new ByteArrayInputStream(new byte[11]), 10);
+
+        StreamUtils.copyToByteArray(inputStream);
+    }
+}
@@ -0,0 +1,91 @@
+package guru.springframework.services;
+
+import guru.springframework.commands.UnitOfMeasureCommand;
+import guru.springframework.converters.UnitOfMeasureToUnitOfMeasureCommand;
+import guru.springframework.domain.UnitOfMeasure;
+import guru.springframework.repositories.UnitOfMeasureRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class UnitOfMeasureCatalogTest {
+
+    @Mock
+    UnitOfMeasureRepository unitOfMeasureRepository;
+
+    UnitOfMeasureCatalog catalog;
+
+    @Before
+    public void setUp() throws Exception {
+        MockitoAnnotations.initMocks(this);
+
+        catalog = new UnitOfMeasureCatalog(unitOfMeasureRepository, new UnitOfMeasureToUnitOfMeasureCommand());
+    }
+
+    @Test
+    public void commandsAreOrderedByDescription() throws Exception {
+        when(unitOfMeasureRepository.findAll()).thenReturn(Arrays.asList(uom(1L, "Teaspoon"), uom(2L, "Cup")));
+
+        List<UnitOfMeasureCommand> commands = catalog.getCommands();
+
+        assertEquals("Cup", commands.get(0).getDescription());
+        assertEquals("Teaspoon", commands.get(1).getDescription());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void commandsAreUnmodifiable() throws Exception {
+        when(unitOfMeasureRepository.findAll()).thenReturn(Collections.singletonList(uom(1L, "Cup")));
+
+        catalog.getCommands().clear();
+    }
+
+    @Test
+    public void lookupsAreServedFromMemory() throws Exception {
+        when(unitOfMeasureRepository.findAll()).thenReturn(Arrays.asList(uom(1L, "Teaspoon"), uom(2L, "Cup")));
+
+        assertEquals("Cup", catalog.findById(2L).get().getDescription());
+        assertEquals(Long.valueOf(1L), catalog.findByDescription("Teaspoon").get().getId());
+        catalog.getCommands();
+
+        verify(unitOfMeasureRepository, times(1)).findAll();
+    }
+
+    @Test
+    public void unknownUnitIsAnsweredFromMemory() throws Exception {
+        when(unitOfMeasureRepository.findAll()).thenReturn(Collections.singletonList(uom(1L, "Cup")));
+        catalog.refresh();
+
+        assertFalse(catalog.findById(3L).isPresent());
+        assertFalse(catalog.findByDescription("Bogus").isPresent());
+        verify(unitOfMeasureRepository, times(1)).findAll();
+    }
+
+    @Test
+    public void refreshPicksUpNewUnits() throws Exception {
+        when(unitOfMeasureRepository.findAll())
+                .thenReturn(Collections.singletonList(uom(1L, "Cup")))
+                .thenReturn(Arrays.asList(uom(1L, "Cup"), uom(2L, "Pinch")));
+        catalog.refresh();
+        assertFalse(catalog.findById(2L).isPresent());
+
+        catalog.refresh();
+
+        assertEquals("Pinch", catalog.findById(2L).get().getDescription());
+        assertEquals(2, catalog.getSize());
+    }
+
+    private UnitOfMeasure uom(Long id, String description) {
+        UnitOfMeasure uom = new UnitOfMeasure();
+        uom.setId(id);
+        uom.setDescription(description);
+        return uom;
+    }
+}